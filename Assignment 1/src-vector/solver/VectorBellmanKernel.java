@@ -0,0 +1,104 @@
+package solver;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Value iteration backup with the Vector API: one lane per state.
+ * Successors are stored per (direction, outcome) in separate arrays, so the utilities of the
+ * successors of consecutive states are gathered into one vector. Walls are not states and moves into
+ * walls or off the grid are already resolved to the state itself, so no masks are needed.
+ * Same operations in the same order as FlatValueIteration.calculateUtilityChange, so results are identical.
+ *
+ * Optional source root: src compiles without it, this class needs the jdk.incubator.vector module and is
+ * compiled separately against the classes of src (see README.md), e.g.
+ *   javac -d out $(find src -name '*.java')
+ *   javac --add-modules jdk.incubator.vector -cp out -d out src-vector/solver/VectorBellmanKernel.java
+ *   java --add-modules jdk.incubator.vector -cp out main.ValueIteration preset-1.txt VECTOR
+ * FlatValueIteration loads it by reflection and falls back to scalar backups when it is missing.
+ */
+class VectorBellmanKernel implements BellmanKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final int OUTCOMES_PER_STATE = StateCoordinate.TOTAL_DIRECTIONS * StateIndex.TOTAL_OUTCOMES;
+
+	private final CompiledGrid grid;
+	private final int limit;
+	// successors[dir * 3 + outcome][s]
+	private final int[][] successors;
+	private final double[] rewards;
+	private final double[] policy;
+
+	VectorBellmanKernel(CompiledGrid grid) {
+		this.grid = grid;
+		this.limit = SPECIES.loopBound(grid.numStates);
+		this.successors = new int[OUTCOMES_PER_STATE][limit];
+		this.rewards = new double[limit];
+		this.policy = new double[SPECIES.length()];
+
+		for (int s = 0; s < limit; s++) {
+			for (int i = 0; i < OUTCOMES_PER_STATE; i++)
+				successors[i][s] = grid.successors[s * OUTCOMES_PER_STATE + i];
+			rewards[s] = grid.rewards[s];
+		}
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public double sweep(double[] source, double[] target) {
+		int lanes = SPECIES.length();
+		DoubleVector maxChange = DoubleVector.zero(SPECIES);
+
+		for (int s = 0; s < limit; s += lanes) {
+			//1. Find the maximum sub utility over the 4 directions, first direction wins ties
+			//Directions are unrolled so that no vector escapes and the JIT keeps them in registers
+			DoubleVector maxSubUtility = subUtility(source, 0, s);
+			DoubleVector bestDirection = DoubleVector.zero(SPECIES);
+
+			DoubleVector subUtility = subUtility(source, 1, s);
+			VectorMask<Double> better = subUtility.compare(VectorOperators.GT, maxSubUtility);
+			maxSubUtility = maxSubUtility.blend(subUtility, better);
+			bestDirection = bestDirection.blend(1, better);
+
+			subUtility = subUtility(source, 2, s);
+			better = subUtility.compare(VectorOperators.GT, maxSubUtility);
+			maxSubUtility = maxSubUtility.blend(subUtility, better);
+			bestDirection = bestDirection.blend(2, better);
+
+			subUtility = subUtility(source, 3, s);
+			better = subUtility.compare(VectorOperators.GT, maxSubUtility);
+			maxSubUtility = maxSubUtility.blend(subUtility, better);
+			bestDirection = bestDirection.blend(3, better);
+
+			//2. New utility = reward + discounted max sub utility
+			DoubleVector newUtility = DoubleVector.fromArray(SPECIES, rewards, s)
+					.add(maxSubUtility.mul(grid.discount));
+			newUtility.intoArray(target, s);
+			maxChange = maxChange.max(newUtility.sub(DoubleVector.fromArray(SPECIES, source, s)).abs());
+
+			bestDirection.intoArray(policy, 0);
+			for (int lane = 0; lane < lanes; lane++)
+				grid.policies[s + lane] = (byte) policy[lane];
+		}
+		return maxChange.reduceLanes(VectorOperators.MAX);
+	}
+
+	/**
+	 * Expected utility of the successors of states [s, s + lanes) for a direction
+	 */
+	private DoubleVector subUtility(double[] source, int direction, int s) {
+		int i = direction * StateIndex.TOTAL_OUTCOMES;
+		DoubleVector up = DoubleVector.fromArray(SPECIES, source, 0, successors[i], s).mul(Constants.PROBABILITY_UP);
+		DoubleVector left = DoubleVector.fromArray(SPECIES, source, 0, successors[i + 1], s).mul(Constants.PROBABILITY_LEFT);
+		DoubleVector right = DoubleVector.fromArray(SPECIES, source, 0, successors[i + 2], s).mul(Constants.PROBABILITY_RIGHT);
+		return up.add(left).add(right);
+	}
+}
@@ -1,25 +1,36 @@
 package controller;
 
+import entities.Parameters;
 import entities.State;
 import entities.StateType;
-import entities.Constants;
 
 public class DisplayController {
 
-	// Display the experiment parameters for value iteration
-	public static void printExperimentParameters(boolean isValueIteration, double convergeThreshold) {
+	/**
+	 * Display the experiment parameters of a run
+	 * @param isValueIteration
+	 * @param parameters parameters the grid was solved with
+	 * @param convergeThreshold convergence threshold of value iteration
+	 */
+	public static void printExperimentParameters(boolean isValueIteration, Parameters parameters,
+			double convergeThreshold) {
 		StringBuilder sb = frameTitle("Experiment Setup");
 		if (isValueIteration) {
-			sb.append("Discount Factor\t\t" + ":\t" + Constants.DISCOUNT_FACTOR + "\n");
-			sb.append("Max Reward(Rmax)\t" + ":\t" + Constants.R_MAX + "\n");
-			sb.append("Constant 'c'\t\t" + ":\t" + Constants.C + "\n");
-			sb.append("Epsilon Value(c * Rmax)\t" + ":\t" + Constants.EPSILON + "\n");
-			sb.append("Utility Upper Bound\t" + ":\t" + String.format("%.5g", Constants.UTILITY_UPPER_BOUND) + "\n");
+			//Rmax is the largest absolute reward, epsilon = c * Rmax
+			float rMax = 0;
+			for (StateType stateType : StateType.values())
+				rMax = Math.max(rMax, Math.abs(parameters.getReward(stateType)));
+			sb.append("Discount Factor\t\t" + ":\t" + parameters.getDiscountFactor() + "\n");
+			sb.append("Max Reward(Rmax)\t" + ":\t" + rMax + "\n");
+			sb.append("Constant 'c'\t\t" + ":\t" + parameters.getEpsilon() / rMax + "\n");
+			sb.append("Epsilon Value(c * Rmax)\t" + ":\t" + parameters.getEpsilon() + "\n");
+			sb.append("Utility Upper Bound\t" + ":\t"
+					+ String.format("%.5g", rMax / (1 - parameters.getDiscountFactor())) + "\n");
 			sb.append("Convergence Threshold\t:\t" + String.format("%.5f", convergeThreshold) + "\n\n");
 		} else {
-			sb.append("Discount\t:\t" + Constants.DISCOUNT_FACTOR + "\n");
+			sb.append("Discount\t:\t" + parameters.getDiscountFactor() + "\n");
 			//(i.e. # of times simplified Bellman update is repeated to produce the next utility estimate)
-			sb.append("k\t\t:\t" + Constants.K + "\n\n");
+			sb.append("k\t\t:\t" + parameters.getK() + "\n\n");
 		}
 		System.out.print(sb.toString());
 	}
@@ -48,22 +59,23 @@ public class DisplayController {
 	//Print Original Grid World with states
 	public static void printGridWorld(State cells[][]) {
 		StringBuilder sb = DisplayController.frameTitle("Grid Environment");
+		int numCol = cells.length, numRow = cells[0].length;
 		sb.append("|");
-		for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+		for(int col = 0 ; col < numCol ; col++) {
 			sb.append("--------|");
 		}
 		sb.append("\n");
 
-		for (int row = 0; row < Constants.NUM_ROW; row++) {
+		for (int row = 0; row < numRow; row++) {
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 				sb.append("--------|".replace('-', ' '));
 			}
 			sb.append("\n");
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 
 				State currCell = cells[col][row];
 				String temp;
@@ -81,13 +93,13 @@ public class DisplayController {
 			}
 
 			sb.append("\n|");
-			for(int col = 0 ; col < Constants.NUM_COL; col++) {
+			for(int col = 0 ; col < numCol; col++) {
 				sb.append("--------|".replace('-', ' '));
 			}
 			sb.append("\n");
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 				sb.append("--------|");
 			}
 			sb.append("\n");
@@ -99,22 +111,23 @@ public class DisplayController {
 	//Print Optimal Policy Grid 
     public static void printPolicy(State cells[][]) {
 		StringBuilder sb = DisplayController.frameTitle("Optimal Policy");
+		int numCol = cells.length, numRow = cells[0].length;
 		sb.append("|");
-		for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+		for(int col = 0 ; col < numCol ; col++) {
 			sb.append("--------|");
 		}
 		sb.append("\n");
 
-		for (int row = 0; row < Constants.NUM_ROW; row++) {
+		for (int row = 0; row < numRow; row++) {
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 				sb.append("--------|".replace('-', ' '));
 			}
 			sb.append("\n");
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 
 				State currCell = cells[col][row];
 				String temp;
@@ -134,13 +147,13 @@ public class DisplayController {
 			}
 
 			sb.append("\n|");
-			for(int col = 0 ; col < Constants.NUM_COL; col++) {
+			for(int col = 0 ; col < numCol; col++) {
 				sb.append("--------|".replace('-', ' '));
 			}
 			sb.append("\n");
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 				sb.append("--------|");
 			}
 			sb.append("\n");
@@ -152,9 +165,10 @@ public class DisplayController {
 	//Print Utilities of each State in the optimal Policy
 	public static void printStateUtilities(State cells[][]) {
 		StringBuilder sb = DisplayController.frameTitle("Utilities of States: ");
+		int numCol = cells.length, numRow = cells[0].length;
 
-		for (int col = 0; col < Constants.NUM_COL; col++) {
-			for (int row = 0; row < Constants.NUM_ROW; row++) {
+		for (int col = 0; col < numCol; col++) {
+			for (int row = 0; row < numRow; row++) {
 				State currCell = cells[col][row];
 				if (currCell.getStateType() != StateType.WALL) {
 					double utility = currCell.getUtility();
@@ -172,22 +186,23 @@ public class DisplayController {
 	//Print Optimal Policy utilities in grid format
     public static void printUtilityGrid(State cells[][]) {
 		StringBuilder sb = DisplayController.frameTitle("Optimal Policy Utilities");
+		int numCol = cells.length, numRow = cells[0].length;
 		sb.append("|");
-		for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+		for(int col = 0 ; col < numCol ; col++) {
 			sb.append("--------|");
 		}
 		sb.append("\n");
 
-		for (int row = 0; row < Constants.NUM_ROW; row++) {
+		for (int row = 0; row < numRow; row++) {
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 				sb.append("--------|".replace('-', ' '));
 			}
 			sb.append("\n");
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 
 				State currCell = cells[col][row];
 				String temp;
@@ -208,13 +223,13 @@ public class DisplayController {
 			}
 
 			sb.append("\n|");
-			for(int col = 0 ; col < Constants.NUM_COL; col++) {
+			for(int col = 0 ; col < numCol; col++) {
 				sb.append("--------|".replace('-', ' '));
 			}
 			sb.append("\n");
 
 			sb.append("|");
-			for(int col = 0 ; col < Constants.NUM_COL ; col++) {
+			for(int col = 0 ; col < numCol ; col++) {
 				sb.append("--------|");
 			}
 			sb.append("\n");
@@ -1,34 +1,74 @@
 package controller;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
-import entities.Constants;
+import entities.Parameters;
 import entities.State;
 import entities.StateCoordinate;
-
-
-// import entities.Constants;
+import entities.StateType;
+import fileManager.GridFileParser;
 
 public class GridEnvironment {
 	State[][] cells;
 	int numOfCol, numOfRow;
 
+	//Dense index over the non-wall states, built on first use and rebuilt when walls change
+	private StateIndex stateIndex;
+
 	/**
 	 * Initialise Grid with speicified numb of rows and columns. States are set to default values
 	 * Default Values: Utility = 0, Policy = UP, StateType = WHITE
-	 * @param col
-	 * @param row
+	 * @param numOfCol
+	 * @param numOfRow
+	 */
+	public GridEnvironment(int numOfCol, int numOfRow) {
+		initCells(numOfCol, numOfRow);
+	}
+
+	//Paramterized constructor to extract states from the text file, grid size is taken from the file
+	//Files with the PackedGrid extension are loaded as packed grids
+	public GridEnvironment(String fileName) {
+		if (fileName.endsWith(PackedGrid.EXTENSION))
+			this.importPackedGrid(fileName);
+		else
+			this.importGridFromFile(fileName);
+	}
+
+	/**
+	 * Initialise Grid with the state types of a packed grid
+	 * @param packedGrid
+	 */
+	public GridEnvironment(PackedGrid packedGrid) {
+		setStateTypes(packedGrid);
+	}
+
+	/**
+	 * Initialise Grid by repeating the state types of a smaller grid, for synthetic large grids
+	 * @param tile grid to repeat
+	 * @param colTiles number of copies along the columns
+	 * @param rowTiles number of copies along the rows
 	 */
-	public GridEnvironment() {
-		if (numOfCol < 0 || numOfRow < 0)
+	public GridEnvironment(GridEnvironment tile, int colTiles, int rowTiles) {
+		initCells(tile.numOfCol * colTiles, tile.numOfRow * rowTiles);
+		for (int c = 0; c < this.numOfCol; c++) {
+			for (int r = 0; r < this.numOfRow; r++) {
+				cells[c][r].setStateType(tile.cells[c % tile.numOfCol][r % tile.numOfRow].getStateType());
+			}
+		}
+	}
+
+	private void initCells(int numOfCol, int numOfRow) {
+		if (numOfCol <= 0 || numOfRow <= 0)
 			throw new IllegalArgumentException("Column and Row must be a positive integer.");
 
-		this.numOfCol = Constants.NUM_COL;
-		this.numOfRow = Constants.NUM_ROW;
+		this.numOfCol = numOfCol;
+		this.numOfRow = numOfRow;
 		this.cells = new State[this.numOfCol][this.numOfRow];
+		this.stateIndex = null;
 
 		for (int c = 0; c < numOfCol; c++) {
 			for (int r = 0; r < numOfRow; r++) {
@@ -36,19 +76,66 @@ public class GridEnvironment {
 				cells[c][r] = new State(coordinates);
 			}
 		}
-		
 	}
 
-	//Paramterized constructor to extract states from the text file
-	public GridEnvironment(String fileName) {
-		this();
-		this.importGridFromFile(fileName);
+	public int getNumOfCol() {
+		return numOfCol;
+	}
+
+	public int getNumOfRow() {
+		return numOfRow;
 	}
 
 	public State getCell(StateCoordinate coordinate) {
+		if (coordinate.getCol() >= numOfCol || coordinate.getRow() >= numOfRow)
+			throw new IllegalArgumentException("Coordinate out of range.");
 		return NeighbourhoodStates.getCell(coordinate,cells);
 	}
 
+	/**
+	 * Change the state type of one cell, keeping the state index up to date
+	 * The utility of the cell is reset to its new reward, as when importing a grid
+	 * @param col
+	 * @param row
+	 * @param stateType 'W', 'G', 'B' or 'X'
+	 * @return Cell indices (col * numRow + row) whose state type or successors changed (the cell and its adjacent cells)
+	 */
+	public int[] setCellType(int col, int row, char stateType) {
+		State cell = getCell(new StateCoordinate(col, row));
+		boolean wasWall = cell.getStateType() == StateType.WALL;
+		cell.setStateType(stateType);
+
+		//Walls are not in the state index, so it is rebuilt when a wall is added or removed
+		if (stateIndex != null) {
+			if (wasWall != (cell.getStateType() == StateType.WALL))
+				stateIndex = null;
+			else if (!wasWall)
+				stateIndex.setStateType(stateIndex.getState(col, row), (byte) cell.getStateType().ordinal());
+		}
+
+		//Only the cell and its 4 adjacent cells can have different successors
+		int[] changed = new int[1 + StateCoordinate.TOTAL_DIRECTIONS];
+		int count = 0;
+		changed[count++] = col * numOfRow + row;
+		for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++) {
+			int c = col + StateCoordinate.COORDINATE_OFFSET[dir][0][0];
+			int r = row + StateCoordinate.COORDINATE_OFFSET[dir][0][1];
+			if (c >= 0 && r >= 0 && c < numOfCol && r < numOfRow)
+				changed[count++] = c * numOfRow + r;
+		}
+		return Arrays.copyOf(changed, count);
+	}
+
+	/**
+	 * Get the dense index of the non-wall states, solvers iterate over it and never visit walls
+	 * @return
+	 */
+	public StateIndex getStateIndex() {
+		if (stateIndex == null)
+			stateIndex = new StateIndex(cells);
+		return stateIndex;
+	}
+
 	/**
 	 * Get Neighbourhood states wrt current policy and policy direction
 	 * Call Display Controller
@@ -93,31 +180,85 @@ public class GridEnvironment {
 	public void printStateUtilities() {
 		DisplayController.printStateUtilities(cells);
 	}
-	public void printExperimentParamters(boolean isValueIteration,double threshold) {
-		DisplayController.printExperimentParameters(isValueIteration,threshold);
+	public void printExperimentParamters(boolean isValueIteration,Parameters parameters,double threshold) {
+		DisplayController.printExperimentParameters(isValueIteration,parameters,threshold);
 	}
 
 	/**
 	 * Import the grid world states from text file
-	 * @param currentCell
+	 * Width is the number of tokens on a line and height the number of non-empty lines
+	 * @param fileName
+	 * @throws IllegalArgumentException if the file is not a valid grid, with the line and column of the error
+	 * @throws UncheckedIOException if the file cannot be read
 	 */
 	public void importGridFromFile(String fileName) {
+		String filePath = new File("").getAbsolutePath();
+		GridFileParser parser;
 		try {
-			String filePath = new File("").getAbsolutePath();
-			Scanner s = new Scanner(new BufferedReader(new FileReader(filePath.concat("/presetGridWorlds/" + fileName))));
-
-			while (s.hasNext()) {
-				for (int r = 0; r < this.numOfRow; r++) {
-					for (int c = 0; c < this.numOfCol; c++) {
-						char stateType = s.next().charAt(0);
-						cells[c][r].setStateType(stateType);
-					}
-				}
+			parser = new GridFileParser(Paths.get(filePath.concat("/presetGridWorlds/" + fileName)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		//Size grid from file and set state types
+		initCells(parser.getNumOfCol(), parser.getNumOfRow());
+		StateType[] stateTypes = StateType.values();
+		for (int c = 0; c < this.numOfCol; c++) {
+			for (int r = 0; r < this.numOfRow; r++) {
+				cells[c][r].setStateType(stateTypes[parser.getStateType(c, r)]);
 			}
+		}
+	}
+
+	/**
+	 * Import the grid world states from a packed grid file (see PackedGrid)
+	 * @param fileName
+	 * @throws UncheckedIOException if the file cannot be read or is not a packed grid
+	 */
+	public void importPackedGrid(String fileName) {
+		String filePath = new File("").getAbsolutePath();
+		try {
+			setStateTypes(new PackedGrid(Paths.get(filePath.concat("/presetGridWorlds/" + fileName))));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
-			s.close();
-		} catch (Exception e) {
-			System.out.println(e);
+	/**
+	 * Save the state types of the grid as a packed grid file in presetGridWorlds
+	 * @param fileName
+	 * @throws UncheckedIOException if the file cannot be written
+	 */
+	public void exportPackedGrid(String fileName) {
+		String filePath = new File("").getAbsolutePath();
+		try {
+			toPackedGrid().save(Paths.get(filePath.concat("/presetGridWorlds/" + fileName)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Pack the state types of the grid in 2 bits per cell
+	 * @return
+	 */
+	public PackedGrid toPackedGrid() {
+		PackedGrid packedGrid = new PackedGrid(numOfCol, numOfRow);
+		for (int c = 0; c < numOfCol; c++) {
+			for (int r = 0; r < numOfRow; r++) {
+				packedGrid.setStateType(packedGrid.index(c, r), cells[c][r].getStateType().ordinal());
+			}
+		}
+		return packedGrid;
+	}
+
+	private void setStateTypes(PackedGrid packedGrid) {
+		initCells(packedGrid.getNumOfCol(), packedGrid.getNumOfRow());
+		StateType[] stateTypes = StateType.values();
+		for (int c = 0; c < this.numOfCol; c++) {
+			for (int r = 0; r < this.numOfRow; r++) {
+				cells[c][r].setStateType(stateTypes[packedGrid.getStateType(packedGrid.index(c, r))]);
+			}
 		}
 	}
 }
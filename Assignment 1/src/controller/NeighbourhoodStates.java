@@ -1,6 +1,5 @@
 package controller;
 
-import entities.Policy;
 import entities.State;
 import entities.StateCoordinate;
 import entities.StateType;
@@ -21,22 +20,7 @@ public class NeighbourhoodStates {
 	 * @return [Intended Position, Left Angle (L), Right Angle (R)]
 	 */
 	public static State[] getNeighboursOfCell(State currentCell, State cells[][]) {
-		Policy currentPolicy = currentCell.getPolicy();
-		StateCoordinate[] neighbourCoordinates = currentCell.getNeighbours(currentPolicy.getDirection());
-
-		//Ensure the neighbour stateType is not a wall
-		State[] neighbourCells = new State[neighbourCoordinates.length];
-		for (int n = 0; n < neighbourCoordinates.length; n++) {
-			State neighbourCell = getCell(neighbourCoordinates[n],cells);
-
-			//If neighout a wall, stay in current state
-			if (neighbourCell.getStateType() == StateType.WALL)
-				neighbourCoordinates[n] = (StateCoordinate) currentCell; 
-
-			neighbourCells[n] = getCell(neighbourCoordinates[n],cells);
-		}
-		//Collect possible neighbourhood of current state
-		return neighbourCells;
+		return getNeighboursOfCell(currentCell, currentCell.getPolicy().getDirection(), cells);
 	}
 
 	/**
@@ -47,18 +31,20 @@ public class NeighbourhoodStates {
 	 * @return [Intended Position, Left Angle (L), Right Angle (R)]
 	 */
 	public static State[] getNeighboursOfCell(State currentCell, int direction, State cells[][]) {
-		StateCoordinate[] neighbourCoordinates = currentCell.getNeighbours(direction);
-
-		/* Make sure neighbour stateType is not a wall */
-		State[] neighbourCells = new State[neighbourCoordinates.length];
-		for (int n = 0; n < neighbourCoordinates.length; n++) {
-			State neighbourCell = getCell(neighbourCoordinates[n],cells);
-
-			//If neighout a wall, stay in current state
-			if (neighbourCell.getStateType() == StateType.WALL)
-				neighbourCoordinates[n] = (StateCoordinate) currentCell; 
-
-			neighbourCells[n] = getCell(neighbourCoordinates[n],cells);
+		int numCol = cells.length;
+		int numRow = cells[0].length;
+
+		State[] neighbourCells = new State[StateIndex.TOTAL_OUTCOMES];
+		for (int n = 0; n < neighbourCells.length; n++) {
+			int col = currentCell.getCol() + StateCoordinate.COORDINATE_OFFSET[direction][n][0];
+			int row = currentCell.getRow() + StateCoordinate.COORDINATE_OFFSET[direction][n][1];
+
+			//If neighbour is out of the grid or a wall, stay in current state
+			if (col < 0 || row < 0 || col >= numCol || row >= numRow
+					|| cells[col][row].getStateType() == StateType.WALL)
+				neighbourCells[n] = currentCell;
+			else
+				neighbourCells[n] = cells[col][row];
 		}
 		//Collect possible neighbourhood of current state
 		return neighbourCells;
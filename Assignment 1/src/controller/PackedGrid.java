@@ -0,0 +1,145 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import entities.StateType;
+import fileManager.GridFileParser;
+
+/**
+ * State types of a grid packed in 2 bits per cell (StateType ordinal), 32 cells per long,
+ * in state index order (col * numRow + row).
+ * 
+ * File format, little-endian: int magic "MDPG", int version, int numCol, int numRow,
+ * then the packed words (cell s in byte s / 4, bits 2 * (s % 4)), zero padded to a multiple of 8 bytes.
+ */
+public class PackedGrid {
+	public static final int MAGIC = 0x4D445047;
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".pgrid";
+
+	private static final int HEADER_SIZE = 16;
+	private static final int CELLS_PER_WORD = 32;
+
+	private final int numCol, numRow;
+	private final long[] words;
+
+	/**
+	 * Grid of white cells
+	 * @param numCol
+	 * @param numRow
+	 */
+	public PackedGrid(int numCol, int numRow) {
+		if (numCol <= 0 || numRow <= 0)
+			throw new IllegalArgumentException("Column and Row must be a positive integer.");
+		this.numCol = numCol;
+		this.numRow = numRow;
+		this.words = new long[(int) (((long) numCol * numRow + CELLS_PER_WORD - 1) / CELLS_PER_WORD)];
+	}
+
+	/**
+	 * Pack a parsed text grid file, without creating State objects
+	 * @param parser
+	 */
+	public PackedGrid(GridFileParser parser) {
+		this(parser.getNumOfCol(), parser.getNumOfRow());
+		for (int c = 0; c < numCol; c++) {
+			for (int r = 0; r < numRow; r++) {
+				setStateType(index(c, r), parser.getStateType(c, r));
+			}
+		}
+	}
+
+	/**
+	 * Load a packed grid file
+	 * @param path
+	 * @throws IOException
+	 */
+	public PackedGrid(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+				throw new IOException(path + " is not a packed grid file.");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported packed grid version " + version + ".");
+
+			this.numCol = buffer.getInt();
+			this.numRow = buffer.getInt();
+			if (numCol <= 0 || numRow <= 0)
+				throw new IOException(path + " has an invalid size " + numCol + "x" + numRow + ".");
+			this.words = new long[(int) (((long) numCol * numRow + CELLS_PER_WORD - 1) / CELLS_PER_WORD)];
+			if (buffer.remaining() < (long) words.length * Long.BYTES)
+				throw new IOException(path + " is truncated.");
+			buffer.asLongBuffer().get(words);
+		}
+	}
+
+	/**
+	 * Save the packed grid
+	 * @param path
+	 * @throws IOException
+	 */
+	public void save(Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(numCol).putInt(numRow);
+		buffer.asLongBuffer().put(words);
+		buffer.rewind();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+
+	public int getNumOfCol() {
+		return numCol;
+	}
+
+	public int getNumOfRow() {
+		return numRow;
+	}
+
+	public int index(int col, int row) {
+		return col * numRow + row;
+	}
+
+	/**
+	 * @param s state index
+	 * @return StateType ordinal
+	 */
+	public byte getStateType(int s) {
+		return (byte) ((words[s >>> 5] >>> ((s & 31) << 1)) & 3);
+	}
+
+	/**
+	 * @param s state index
+	 * @param stateType StateType ordinal
+	 */
+	public void setStateType(int s, int stateType) {
+		int shift = (s & 31) << 1;
+		words[s >>> 5] = (words[s >>> 5] & ~(3L << shift)) | ((long) stateType << shift);
+	}
+
+	public boolean isWall(int s) {
+		return getStateType(s) == StateType.WALL.ordinal();
+	}
+
+	/**
+	 * Convert a text grid file in presetGridWorlds into a packed grid file next to it
+	 * @param args text grid file name, packed grid file name
+	 */
+	public static void main(String[] args) throws IOException {
+		String filePath = new File("").getAbsolutePath().concat("/presetGridWorlds/");
+		PackedGrid grid = new PackedGrid(new GridFileParser(Paths.get(filePath + args[0])));
+		grid.save(Paths.get(filePath + args[1]));
+	}
+}
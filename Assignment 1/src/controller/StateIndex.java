@@ -0,0 +1,239 @@
+package controller;
+
+import java.util.function.IntUnaryOperator;
+
+import entities.State;
+import entities.StateCoordinate;
+import entities.StateType;
+
+/**
+ * Dense index over the non-wall cells of a grid, so solvers never visit walls.
+ * States are numbered 0 .. getNumOfStates() in col-major cell order (col * numRow + row),
+ * the same order as the State[][] loops and the log headers with walls left out.
+ */
+public class StateIndex {
+	// Possible outcomes of an action: [UP (Forward), Left Dir (L), Right Dir (R)]
+	public static final int TOTAL_OUTCOMES = 3;
+	// Only the 4 adjacent states can move into a state
+	public static final int MAX_PREDECESSORS = 4;
+
+	private static final int OUTCOMES_PER_STATE = StateCoordinate.TOTAL_DIRECTIONS * TOTAL_OUTCOMES;
+
+	private final int numCol, numRow;
+
+	// State -> cell index (col * numRow + row), and cell index -> state (-1 for walls)
+	private final int[] cellOfState;
+	private final int[] stateOfCell;
+
+	// StateType ordinal of every state
+	private final byte[] stateTypes;
+
+	/*
+	 * Successor Index over states: numStates x 4 x 3
+	 * 4x: [UP, DOWN, LEFT, RIGHT]
+	 * 3x: [UP (Forward), Left Dir (L), Right Dir (R)]
+	 * Moves into walls or off the grid stay in the current state.
+	 */
+	private final int[] successors;
+
+	/*
+	 * Reverse index, built on first use: predecessors of state s are
+	 * predecessors[s * 4 .. s * 4 + predecessorCount[s]), without duplicates and without s itself.
+	 */
+	private int[] predecessors;
+	private byte[] predecessorCount;
+
+	/**
+	 * Build the index for the given states
+	 * @param cells
+	 */
+	public StateIndex(State cells[][]) {
+		this(cells.length, cells[0].length, cell -> cells[cell / cells[0].length][cell % cells[0].length]
+				.getStateType().ordinal());
+	}
+
+	/**
+	 * Build the index from packed state types, without State objects
+	 * @param grid
+	 */
+	public StateIndex(PackedGrid grid) {
+		this(grid.getNumOfCol(), grid.getNumOfRow(), grid::getStateType);
+	}
+
+	/**
+	 * @param numCol
+	 * @param numRow
+	 * @param stateTypeOfCell StateType ordinal of a cell index
+	 */
+	private StateIndex(int numCol, int numRow, IntUnaryOperator stateTypeOfCell) {
+		this.numCol = numCol;
+		this.numRow = numRow;
+		int numCells = numCol * numRow;
+		byte wall = (byte) StateType.WALL.ordinal();
+
+		//1. Number the non-wall cells in cell order
+		byte[] cellTypes = new byte[numCells];
+		this.stateOfCell = new int[numCells];
+		int numStates = 0;
+		for (int cell = 0; cell < numCells; cell++) {
+			cellTypes[cell] = (byte) stateTypeOfCell.applyAsInt(cell);
+			stateOfCell[cell] = cellTypes[cell] == wall ? -1 : numStates++;
+		}
+
+		this.cellOfState = new int[numStates];
+		this.stateTypes = new byte[numStates];
+		for (int cell = 0; cell < numCells; cell++) {
+			int s = stateOfCell[cell];
+			if (s >= 0) {
+				cellOfState[s] = cell;
+				stateTypes[s] = cellTypes[cell];
+			}
+		}
+
+		//2. Successors of every state
+		this.successors = new int[numStates * OUTCOMES_PER_STATE];
+		int i = 0;
+		for (int s = 0; s < numStates; s++) {
+			int c = cellOfState[s] / numRow;
+			int r = cellOfState[s] % numRow;
+			for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++) {
+				for (int o = 0; o < TOTAL_OUTCOMES; o++) {
+					int col = c + StateCoordinate.COORDINATE_OFFSET[dir][o][0];
+					int row = r + StateCoordinate.COORDINATE_OFFSET[dir][o][1];
+
+					//If neighbour is out of the grid or a wall, stay in current state
+					if (col < 0 || row < 0 || col >= numCol || row >= numRow || stateOfCell[col * numRow + row] < 0)
+						successors[i++] = s;
+					else
+						successors[i++] = stateOfCell[col * numRow + row];
+				}
+			}
+		}
+	}
+
+	public int getNumOfCol() {
+		return numCol;
+	}
+
+	public int getNumOfRow() {
+		return numRow;
+	}
+
+	/**
+	 * Number of non-wall states
+	 */
+	public int getNumOfStates() {
+		return cellOfState.length;
+	}
+
+	/**
+	 * State of a coordinate
+	 * @param col
+	 * @param row
+	 * @return State index, -1 for walls
+	 */
+	public int getState(int col, int row) {
+		return stateOfCell[col * numRow + row];
+	}
+
+	/**
+	 * State of a cell index (col * numRow + row), -1 for walls
+	 */
+	public int getStateOfCell(int cell) {
+		return stateOfCell[cell];
+	}
+
+	/**
+	 * Cell index (col * numRow + row) of a state
+	 */
+	public int getCell(int s) {
+		return cellOfState[s];
+	}
+
+	public int getCol(int s) {
+		return cellOfState[s] / numRow;
+	}
+
+	public int getRow(int s) {
+		return cellOfState[s] % numRow;
+	}
+
+	/**
+	 * StateType ordinal of a state
+	 */
+	public byte getStateType(int s) {
+		return stateTypes[s];
+	}
+
+	/**
+	 * Change the state type of a state to another non-wall type, successors are not affected
+	 * @param s
+	 * @param stateType StateType ordinal
+	 */
+	void setStateType(int s, byte stateType) {
+		stateTypes[s] = stateType;
+	}
+
+	/**
+	 * Raw successor table over states, laid out as [(s * 4 + direction) * 3 + outcome]
+	 */
+	public int[] getSuccessors() {
+		return successors;
+	}
+
+	/**
+	 * States that can move into a state with any action, laid out as [s * 4 + i] (see getPredecessorCount())
+	 */
+	public int[] getPredecessors() {
+		if (predecessors == null)
+			buildPredecessors();
+		return predecessors;
+	}
+
+	/**
+	 * Number of predecessors of each state
+	 */
+	public byte[] getPredecessorCount() {
+		if (predecessorCount == null)
+			buildPredecessors();
+		return predecessorCount;
+	}
+
+	/**
+	 * Build the reverse successor index
+	 */
+	private void buildPredecessors() {
+		int numStates = getNumOfStates();
+		this.predecessors = new int[numStates * MAX_PREDECESSORS];
+		this.predecessorCount = new byte[numStates];
+
+		int[] unique = new int[OUTCOMES_PER_STATE];
+		for (int p = 0; p < numStates; p++) {
+			int n = uniqueSuccessors(p, unique);
+			for (int i = 0; i < n; i++)
+				predecessors[unique[i] * MAX_PREDECESSORS + predecessorCount[unique[i]]++] = p;
+		}
+	}
+
+	/**
+	 * Collect the distinct successors of p other than p itself
+	 * @return number of successors written to unique
+	 */
+	private int uniqueSuccessors(int p, int[] unique) {
+		int count = 0;
+		int from = p * OUTCOMES_PER_STATE;
+		int to = from + OUTCOMES_PER_STATE;
+		next:
+		for (int i = from; i < to; i++) {
+			int s = successors[i];
+			if (s == p)
+				continue;
+			for (int j = 0; j < count; j++) {
+				if (unique[j] == s)
+					continue next;
+			}
+			unique[count++] = s;
+		}
+		return count;
+	}
+}
@@ -1,13 +1,6 @@
 package entities;
 
 public class Constants {
-	// Grid World
-	public final static int NUM_COL = 6;
-	public final static int NUM_ROW = 6;
-	// Assignment 1 -- Part 2 (c)
-	// public final static int NUM_COL = 12;
-	// public final static int NUM_ROW = 12;
-	
 	// Reward
 	public final static float WHITE_REWARD = -0.04f;
 	public final static float GREEN_REWARD = 1f;
@@ -39,4 +32,14 @@ public class Constants {
 	// Constant K
 	// Parameter to set number of times Bellman update is executed to get next utility estimate 
 	public static final int K = 40;
+
+	// Relaxation factor of the SOR solver used for exact policy evaluation
+	// P is not symmetric, so SOR is only guaranteed to converge up to 1. It diverges from about 1.5 on the preset grids
+	public static final double SOR_RELAXATION = 1.3;
+
+	// Adaptive policy evaluation: default bounds on the number of sweeps chosen per policy iteration
+	public static final int MIN_ADAPTIVE_K = 1;
+	public static final int MAX_ADAPTIVE_K = 100;
+	// Adaptive policy evaluation: fraction of the Bellman residual span of the last improvement a round stops at
+	public static final double ADAPTIVE_TOLERANCE_FRACTION = 0.1;
 }
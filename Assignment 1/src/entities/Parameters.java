@@ -0,0 +1,79 @@
+package entities;
+
+/**
+ * Parameters of one experiment run: discount factor, K, epsilon and the rewards of the state types.
+ * DEFAULT holds the values of Constants, other runs pass their own Parameters to the compiled grid.
+ */
+public class Parameters {
+	public static final Parameters DEFAULT = new Parameters(Constants.DISCOUNT_FACTOR, Constants.K, Constants.EPSILON,
+			Constants.WHITE_REWARD, Constants.GREEN_REWARD, Constants.BROWN_REWARD);
+
+	private final float discountFactor;
+	private final int k;
+	private final float epsilon;
+	// Reward of every StateType, indexed by ordinal
+	private final float[] rewards;
+
+	/**
+	 * @param discountFactor in (0, 1)
+	 * @param k number of Bellman updates per policy evaluation
+	 * @param epsilon maximum error allowed (c * Rmax)
+	 * @param whiteReward
+	 * @param greenReward
+	 * @param brownReward
+	 */
+	public Parameters(float discountFactor, int k, float epsilon, float whiteReward, float greenReward,
+			float brownReward) {
+		if (discountFactor <= 0 || discountFactor >= 1)
+			throw new IllegalArgumentException("Discount factor must be in (0, 1).");
+		if (k < 1)
+			throw new IllegalArgumentException("K must be a positive integer.");
+		if (epsilon <= 0)
+			throw new IllegalArgumentException("Epsilon must be positive.");
+
+		this.discountFactor = discountFactor;
+		this.k = k;
+		this.epsilon = epsilon;
+		this.rewards = new float[StateType.values().length];
+		rewards[StateType.WHITE.ordinal()] = whiteReward;
+		rewards[StateType.GREEN.ordinal()] = greenReward;
+		rewards[StateType.BROWN.ordinal()] = brownReward;
+		rewards[StateType.WALL.ordinal()] = Constants.WALL_REWARD;
+	}
+
+	public float getDiscountFactor() {
+		return discountFactor;
+	}
+
+	public int getK() {
+		return k;
+	}
+
+	public float getEpsilon() {
+		return epsilon;
+	}
+
+	public float getReward(StateType stateType) {
+		return rewards[stateType.ordinal()];
+	}
+
+	/**
+	 * @param stateType StateType ordinal
+	 */
+	public float getReward(byte stateType) {
+		return rewards[stateType];
+	}
+
+	/**
+	 * Convergence threshold of value iteration: epsilon * (1 - discount) / discount
+	 */
+	public double getThreshold() {
+		return epsilon * ((1 - discountFactor) / discountFactor);
+	}
+
+	@Override
+	public String toString() {
+		return "discount=" + discountFactor + " K=" + k + " epsilon=" + epsilon + " rewards(W/G/B)="
+				+ getReward(StateType.WHITE) + "/" + getReward(StateType.GREEN) + "/" + getReward(StateType.BROWN);
+	}
+}
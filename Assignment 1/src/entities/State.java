@@ -24,6 +24,11 @@ public class State extends StateCoordinate {
 		return stateType;
 	}
 
+	public void setStateType(StateType type) {
+		this.stateType = type;
+		this.setUtility(type.getReward());
+	}
+
 	public void setStateType(char type) {
 		switch (type) {
 		case 'W':
@@ -0,0 +1,137 @@
+package fileManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import entities.StateType;
+
+/**
+ * Memory-maps a binary trace (see BinaryTraceWriter) for random access to any iteration or to the
+ * time series of any state. Large traces are mapped in segments of whole rows.
+ */
+public class BinaryTraceReader {
+	private final int numCol, numRow, numStates;
+	private final byte[] stateTypes;
+	private final int numIterations;
+
+	private final int rowsPerSegment;
+	private final MappedByteBuffer[] segments;
+
+	/**
+	 * Open and map a trace file
+	 * @param path
+	 * @throws IOException
+	 */
+	public BinaryTraceReader(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 16));
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.remaining() < 16 || header.getInt() != BinaryTraceWriter.MAGIC)
+				throw new IOException(path + " is not a utility trace file.");
+			int version = header.getInt();
+			if (version != BinaryTraceWriter.VERSION)
+				throw new IOException("Unsupported trace version " + version + ".");
+
+			this.numCol = header.getInt();
+			this.numRow = header.getInt();
+			this.numStates = numCol * numRow;
+			this.stateTypes = new byte[numStates];
+			channel.map(FileChannel.MapMode.READ_ONLY, 16, numStates).get(stateTypes);
+
+			long rowBytes = (long) numStates * Double.BYTES;
+			long headerSize = BinaryTraceWriter.headerSize(numStates);
+			if (rowBytes > Integer.MAX_VALUE)
+				throw new IOException("Rows of more than " + Integer.MAX_VALUE + " bytes are not supported.");
+			this.numIterations = (int) ((channel.size() - headerSize) / rowBytes);
+
+			//Map whole rows per segment, at most 1 GB each
+			this.rowsPerSegment = (int) Math.max(1, (1L << 30) / rowBytes);
+			this.segments = new MappedByteBuffer[(numIterations + rowsPerSegment - 1) / rowsPerSegment];
+			for (int i = 0; i < segments.length; i++) {
+				int rows = Math.min(rowsPerSegment, numIterations - i * rowsPerSegment);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, headerSize + i * rowsPerSegment * rowBytes,
+						rows * rowBytes);
+				segments[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+	}
+
+	public int getNumOfCol() {
+		return numCol;
+	}
+
+	public int getNumOfRow() {
+		return numRow;
+	}
+
+	public int getNumOfIterations() {
+		return numIterations;
+	}
+
+	public StateType getStateType(int s) {
+		return StateType.values()[stateTypes[s]];
+	}
+
+	/**
+	 * Utility of a state (col-major index) in an iteration
+	 */
+	public double getUtility(int iteration, int s) {
+		MappedByteBuffer segment = segments[iteration / rowsPerSegment];
+		long offset = ((long) (iteration % rowsPerSegment) * numStates + s) * Double.BYTES;
+		return segment.getDouble((int) offset);
+	}
+
+	/**
+	 * Copy the utilities of all states in an iteration into row
+	 * @param iteration
+	 * @param row length numCol * numRow
+	 */
+	public void getIteration(int iteration, double[] row) {
+		MappedByteBuffer segment = segments[iteration / rowsPerSegment];
+		int offset = (iteration % rowsPerSegment) * numStates * Double.BYTES;
+		segment.slice(offset, numStates * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(row);
+	}
+
+	/**
+	 * Copy the utility of one state in every iteration into series
+	 * @param s
+	 * @param series length getNumOfIterations()
+	 */
+	public void getStateSeries(int s, double[] series) {
+		for (int i = 0; i < numIterations; i++)
+			series[i] = getUtility(i, s);
+	}
+
+	/**
+	 * Convert the trace to the CSV layout of the text logs (same headers and values)
+	 * @param csvWriter
+	 * @throws IOException
+	 */
+	public void writeCSV(Writer csvWriter) throws IOException {
+		writeToCSV.writeHeaders(csvWriter, numCol, numRow, stateTypes);
+
+		StringBuilder row = new StringBuilder();
+		double[] utilities = new double[numStates];
+		for (int i = 0; i < numIterations; i++) {
+			getIteration(i, utilities);
+			writeToCSV.writeRow(csvWriter, row, utilities);
+		}
+	}
+
+	/**
+	 * Convert a trace file to a CSV file
+	 * @param args trace file, CSV file
+	 */
+	public static void main(String[] args) throws IOException {
+		BinaryTraceReader reader = new BinaryTraceReader(Path.of(args[0]));
+		try (Writer csvWriter = Files.newBufferedWriter(Path.of(args[1]))) {
+			reader.writeCSV(csvWriter);
+		}
+	}
+}
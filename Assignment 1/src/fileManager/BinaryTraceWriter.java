@@ -0,0 +1,115 @@
+package fileManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes per-iteration utility traces in the binary trace format:
+ * 
+ * int magic ("MDPT"), int version, int numCol, int numRow,
+ * numCol * numRow bytes of state types (StateType ordinal, col-major), zero padded to a multiple of 8,
+ * then one row of numCol * numRow float64 utilities per iteration (col-major). Little endian.
+ */
+public class BinaryTraceWriter {
+	public static final int MAGIC = 0x4D445054;
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".trace";
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int numStates;
+
+	/**
+	 * Create the trace file and write its header
+	 * @param path
+	 * @param numCol
+	 * @param numRow
+	 * @param stateTypes state type ordinal of every state, col-major
+	 * @throws IOException
+	 */
+	public BinaryTraceWriter(Path path, int numCol, int numRow, byte[] stateTypes) throws IOException {
+		this(path, MAGIC, VERSION, numCol, numRow, stateTypes);
+	}
+
+	/**
+	 * Create a file with the trace header and the given magic number and version
+	 */
+	protected BinaryTraceWriter(Path path, int magic, int version, int numCol, int numRow, byte[] stateTypes)
+			throws IOException {
+		this.numStates = numCol * numRow;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(magic).putInt(version).putInt(numCol).putInt(numRow);
+		for (int s = 0; s < numStates; s++) {
+			if (!buffer.hasRemaining())
+				drain();
+			buffer.put(stateTypes[s]);
+		}
+		for (int pad = headerSize(numStates) - 16 - numStates; pad > 0; pad--) {
+			if (!buffer.hasRemaining())
+				drain();
+			buffer.put((byte) 0);
+		}
+	}
+
+	/**
+	 * Size of the header in bytes, rows start 8-byte aligned
+	 */
+	public static int headerSize(int numStates) {
+		return 16 + ((numStates + 7) & ~7);
+	}
+
+	/**
+	 * Append the utilities of one iteration
+	 * @param utilities col-major, length numCol * numRow
+	 * @throws IOException
+	 */
+	public void writeRow(double[] utilities) throws IOException {
+		for (int s = 0; s < numStates; s++)
+			putDouble(utilities[s]);
+	}
+
+	protected void putByte(int value) throws IOException {
+		if (!buffer.hasRemaining())
+			drain();
+		buffer.put((byte) value);
+	}
+
+	protected void putInt(int value) throws IOException {
+		if (buffer.remaining() < Integer.BYTES)
+			drain();
+		buffer.putInt(value);
+	}
+
+	protected void putFloat(float value) throws IOException {
+		if (buffer.remaining() < Float.BYTES)
+			drain();
+		buffer.putFloat(value);
+	}
+
+	protected void putDouble(double value) throws IOException {
+		if (buffer.remaining() < Double.BYTES)
+			drain();
+		buffer.putDouble(value);
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	public void close() throws IOException {
+		drain();
+		channel.close();
+	}
+}
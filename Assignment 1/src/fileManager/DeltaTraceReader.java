@@ -0,0 +1,200 @@
+package fileManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a delta trace (see DeltaTraceWriter): rebuilds the full utility vector of every logged iteration.
+ */
+public class DeltaTraceReader {
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int numCol, numRow;
+	private final byte[] stateTypes;
+	// Cell (col-major) of every non-wall state, and the changed states of the current record
+	private final int[] cellOfState;
+	private final int[] changed;
+
+	/**
+	 * Open a delta trace and read its header
+	 * @param path
+	 * @throws IOException
+	 */
+	public DeltaTraceReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.flip();
+
+		if (!fill(16) || buffer.getInt() != DeltaTraceWriter.MAGIC)
+			throw new IOException(path + " is not a delta trace file.");
+		int version = buffer.getInt();
+		if (version != DeltaTraceWriter.VERSION)
+			throw new IOException("Unsupported trace version " + version + ".");
+		this.numCol = buffer.getInt();
+		this.numRow = buffer.getInt();
+
+		int numStates = numCol * numRow;
+		this.stateTypes = new byte[numStates];
+		int padding = BinaryTraceWriter.headerSize(numStates) - 16 - numStates;
+		for (int s = 0; s < numStates; s++) {
+			fill(1);
+			stateTypes[s] = buffer.get();
+		}
+		for (int i = 0; i < padding; i++) {
+			fill(1);
+			buffer.get();
+		}
+		this.cellOfState = DeltaTraceWriter.cellsOfStates(stateTypes);
+		this.changed = new int[cellOfState.length];
+	}
+
+	public int getNumOfCol() {
+		return numCol;
+	}
+
+	public int getNumOfRow() {
+		return numRow;
+	}
+
+	/**
+	 * Apply the next delta record to utilities
+	 * @param utilities full utility vector, updated in place (col-major)
+	 * @return Iteration of the record, -1 at the end of the trace
+	 * @throws IOException
+	 */
+	public int next(double[] utilities) throws IOException {
+		if (!fill(9))
+			return -1;
+		int iteration = buffer.getInt();
+		int count = buffer.getInt();
+		int encoding = buffer.get();
+
+		//1. First record: every cell
+		if ((encoding & DeltaTraceWriter.ENCODING_FULL) != 0) {
+			for (int cell = 0; cell < count; cell++) {
+				require(Double.BYTES, iteration);
+				utilities[cell] = buffer.getDouble();
+			}
+			return iteration;
+		}
+
+		//2. Changed states, from the bitmap or the gaps between them
+		if ((encoding & DeltaTraceWriter.ENCODING_BITMAP) != 0) {
+			int n = 0;
+			for (int from = 0; from < cellOfState.length; from += 8) {
+				require(1, iteration);
+				int bits = buffer.get() & 0xFF;
+				for (; bits != 0; bits &= bits - 1)
+					changed[n++] = from + Integer.numberOfTrailingZeros(bits);
+			}
+		} else {
+			int previous = -1;
+			for (int i = 0; i < count; i++) {
+				previous += getVarint(iteration) + 1;
+				changed[i] = previous;
+			}
+		}
+
+		//3. Values: exact utilities or float32 changes
+		boolean exact = (encoding & DeltaTraceWriter.ENCODING_EXACT) != 0;
+		for (int i = 0; i < count; i++) {
+			int cell = cellOfState[changed[i]];
+			if (exact) {
+				require(Double.BYTES, iteration);
+				utilities[cell] = buffer.getDouble();
+			} else {
+				require(Float.BYTES, iteration);
+				utilities[cell] += buffer.getFloat();
+			}
+		}
+		return iteration;
+	}
+
+	private int getVarint(int iteration) throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			require(1, iteration);
+			int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	private void require(int n, int iteration) throws IOException {
+		if (!fill(n))
+			throw new IOException("Delta record of iteration " + iteration + " is truncated.");
+	}
+
+	/**
+	 * Make sure at least n bytes are buffered
+	 * @return False if the file ends first
+	 */
+	private boolean fill(int n) throws IOException {
+		if (buffer.remaining() >= n)
+			return true;
+		buffer.compact();
+		while (buffer.position() < n) {
+			if (channel.read(buffer) < 0)
+				break;
+		}
+		buffer.flip();
+		return buffer.remaining() >= n;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Replay the trace into the CSV layout of the text logs, one full row per iteration, like a full log.
+	 * The exact final record repeats the iteration of the last delta, so it replaces that row.
+	 * @param csvWriter
+	 * @return Number of rows written, the number of logged iterations
+	 * @throws IOException if an iteration has no record
+	 */
+	public int writeCSV(Writer csvWriter) throws IOException {
+		writeToCSV.writeHeaders(csvWriter, numCol, numRow, stateTypes);
+
+		StringBuilder row = new StringBuilder();
+		double[] utilities = new double[numCol * numRow];
+		double[] pending = new double[utilities.length];
+		int pendingIteration = -1, iteration, rows = 0;
+		while ((iteration = next(utilities)) >= 0) {
+			//Every iteration has a record, so rows match the iterations of a full log
+			if (iteration != pendingIteration && iteration != pendingIteration + 1)
+				throw new IOException("Delta trace has no record of iteration " + (pendingIteration + 1) + ".");
+			if (pendingIteration >= 0 && iteration != pendingIteration) {
+				writeToCSV.writeRow(csvWriter, row, pending);
+				rows++;
+			}
+			System.arraycopy(utilities, 0, pending, 0, utilities.length);
+			pendingIteration = iteration;
+		}
+		if (pendingIteration >= 0) {
+			writeToCSV.writeRow(csvWriter, row, pending);
+			rows++;
+		}
+		return rows;
+	}
+
+	/**
+	 * Replay a delta trace file into a CSV file
+	 * @param args delta trace file, CSV file
+	 */
+	public static void main(String[] args) throws IOException {
+		DeltaTraceReader reader = new DeltaTraceReader(Path.of(args[0]));
+		try (Writer csvWriter = Files.newBufferedWriter(Path.of(args[1]))) {
+			System.out.println(reader.writeCSV(csvWriter) + " rows");
+		}
+		reader.close();
+	}
+}
@@ -0,0 +1,177 @@
+package fileManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import entities.StateType;
+
+/**
+ * Writes sparse delta rows of utilities. Same header as the binary trace (with magic "MDPD" and VERSION),
+ * followed by one record per logged iteration, also when no state changed:
+ *
+ * int iteration, int count, byte encoding, then the changed states and their values.
+ *
+ * States are the non-wall cells in col-major order (the StateIndex order). The changed states are a bitmap
+ * over all states (ENCODING_BITMAP) or the gaps between them as unsigned LEB128 varints, whichever is smaller.
+ * Each is followed by the float32 change since it was last written, or by the float64 utility in the exact
+ * final record (ENCODING_EXACT). The first record (ENCODING_FULL) holds the float64 utility of every cell,
+ * walls included, and no state list.
+ *
+ * A state is written when its utility differs by more than the threshold from the value it was last
+ * written with. Replay with DeltaTraceReader.
+ */
+public class DeltaTraceWriter extends BinaryTraceWriter {
+	public static final int MAGIC = 0x4D445044;
+	public static final int VERSION = 2;
+	public static final String EXTENSION = ".delta";
+
+	// Encoding bits of a record
+	public static final int ENCODING_BITMAP = 1;
+	public static final int ENCODING_EXACT = 2;
+	public static final int ENCODING_FULL = 4;
+
+	private final double threshold;
+	// Cell (col-major) of every non-wall state
+	private final int[] cellOfState;
+	// Utility of every state as last written, replay rebuilds the same values
+	private final double[] reference;
+	private boolean first = true;
+
+	/**
+	 * @param path
+	 * @param numCol
+	 * @param numRow
+	 * @param stateTypes state type ordinal of every state, col-major
+	 * @param threshold
+	 * @throws IOException
+	 */
+	public DeltaTraceWriter(Path path, int numCol, int numRow, byte[] stateTypes, double threshold) throws IOException {
+		super(path, MAGIC, VERSION, numCol, numRow, stateTypes);
+		this.threshold = threshold;
+		this.cellOfState = cellsOfStates(stateTypes);
+		this.reference = new double[cellOfState.length];
+	}
+
+	/**
+	 * Cells of the non-wall states in col-major order, the order of StateIndex
+	 * @param stateTypes state type ordinal of every cell, col-major
+	 */
+	static int[] cellsOfStates(byte[] stateTypes) {
+		int numStates = 0;
+		for (byte stateType : stateTypes)
+			if (stateType != StateType.WALL.ordinal())
+				numStates++;
+
+		int[] cells = new int[numStates];
+		numStates = 0;
+		for (int cell = 0; cell < stateTypes.length; cell++)
+			if (stateTypes[cell] != StateType.WALL.ordinal())
+				cells[numStates++] = cell;
+		return cells;
+	}
+
+	/**
+	 * Write the states that changed by more than the threshold since they were last written
+	 * @param iteration
+	 * @param utilities col-major
+	 * @throws IOException
+	 */
+	public void writeDelta(int iteration, double[] utilities) throws IOException {
+		writeDelta(iteration, utilities, threshold);
+	}
+
+	/**
+	 * Write every state whose utility differs at all from its last written value, so replay is exact
+	 * @param iteration
+	 * @param utilities col-major
+	 * @throws IOException
+	 */
+	public void writeFinal(int iteration, double[] utilities) throws IOException {
+		writeDelta(iteration, utilities, -1);
+	}
+
+	private void writeDelta(int iteration, double[] utilities, double threshold) throws IOException {
+		//1. First record: every cell, exact
+		putInt(iteration);
+		if (first) {
+			putInt(utilities.length);
+			putByte(ENCODING_FULL);
+			for (double utility : utilities)
+				putDouble(utility);
+			for (int s = 0; s < cellOfState.length; s++)
+				reference[s] = utilities[cellOfState[s]];
+			first = false;
+			return;
+		}
+
+		//2. Count changed states and the size of their gaps, the record header comes first
+		int count = 0;
+		int gapBytes = 0;
+		int previous = -1;
+		for (int s = 0; s < cellOfState.length; s++) {
+			if (changed(s, utilities[cellOfState[s]], threshold)) {
+				count++;
+				gapBytes += varintSize(s - previous - 1);
+				previous = s;
+			}
+		}
+		boolean bitmap = (cellOfState.length + 7) / 8 < gapBytes;
+		putInt(count);
+		putByte((bitmap ? ENCODING_BITMAP : 0) | (threshold < 0 ? ENCODING_EXACT : 0));
+		if (count == 0)
+			return;
+
+		//3. Changed states
+		if (bitmap) {
+			for (int from = 0; from < cellOfState.length; from += 8) {
+				int bits = 0;
+				for (int s = from; s < Math.min(from + 8, cellOfState.length); s++)
+					if (changed(s, utilities[cellOfState[s]], threshold))
+						bits |= 1 << (s - from);
+				putByte(bits);
+			}
+		} else {
+			previous = -1;
+			for (int s = 0; s < cellOfState.length; s++) {
+				if (changed(s, utilities[cellOfState[s]], threshold)) {
+					putVarint(s - previous - 1);
+					previous = s;
+				}
+			}
+		}
+
+		//4. Values, in the same order
+		for (int s = 0; s < cellOfState.length; s++) {
+			double utility = utilities[cellOfState[s]];
+			if (!changed(s, utility, threshold))
+				continue;
+			if (threshold < 0) {
+				putDouble(utility);
+				reference[s] = utility;
+			} else {
+				float delta = (float) (utility - reference[s]);
+				putFloat(delta);
+				reference[s] += delta;
+			}
+		}
+	}
+
+	private boolean changed(int s, double utility, double threshold) {
+		return threshold < 0 ? utility != reference[s] : Math.abs(utility - reference[s]) > threshold;
+	}
+
+	private static int varintSize(int value) {
+		int size = 1;
+		while ((value >>>= 7) != 0)
+			size++;
+		return size;
+	}
+
+	private void putVarint(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			putByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		putByte(value);
+	}
+}
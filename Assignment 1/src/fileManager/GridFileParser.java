@@ -0,0 +1,134 @@
+package fileManager;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import entities.StateType;
+
+/**
+ * Parses a grid file (rows of whitespace separated W/G/B/X tokens) byte by byte over a memory-mapped file.
+ * Width is the number of tokens on a line and height the number of non-empty lines.
+ * Malformed input is reported with its line and column.
+ */
+public class GridFileParser {
+	//Files are mapped in segments of at most 1 GB
+	private static final long SEGMENT_SIZE = 1L << 30;
+
+	private int numCol, numRow;
+	//State type ordinal of every cell, row-major in file order
+	private byte[] stateTypes;
+
+	//Position in the file, for error messages
+	private int line = 1, column = 1;
+	//Cells on the current line
+	private int lineCells;
+	private boolean inToken;
+
+	/**
+	 * Map and parse a grid file
+	 * @param path
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a valid grid
+	 */
+	public GridFileParser(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			//There are at most (size + 1) / 2 tokens
+			if ((size + 1) / 2 > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Grid file " + path + " is too large.");
+			this.stateTypes = new byte[(int) ((size + 1) / 2)];
+
+			for (long position = 0; position < size; position += SEGMENT_SIZE) {
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(SEGMENT_SIZE, size - position));
+				parse(segment);
+			}
+			endLine();
+		}
+
+		if (numRow == 0)
+			throw new IllegalArgumentException("Grid file " + path + " is empty.");
+	}
+
+	private void parse(MappedByteBuffer segment) {
+		int limit = segment.limit();
+		for (int i = 0; i < limit; i++) {
+			byte b = segment.get(i);
+			switch (b) {
+			case '\n':
+				endLine();
+				line++;
+				column = 0;
+				break;
+			case ' ':
+			case '\t':
+			case '\r':
+				inToken = false;
+				break;
+			default:
+				if (inToken)
+					throw error("expected whitespace after state type, found '" + (char) b + "'");
+				if (numRow > 0 && lineCells == numCol)
+					throw error("more than " + numCol + " cells on the line");
+				stateTypes[numRow * numCol + lineCells] = stateType(b);
+				lineCells++;
+				inToken = true;
+			}
+			column++;
+		}
+	}
+
+	private byte stateType(byte symbol) {
+		switch (symbol) {
+		case 'W':
+			return (byte) StateType.WHITE.ordinal();
+		case 'B':
+			return (byte) StateType.BROWN.ordinal();
+		case 'G':
+			return (byte) StateType.GREEN.ordinal();
+		case 'X':
+			return (byte) StateType.WALL.ordinal();
+		default:
+			throw error("unknown state type '" + (char) symbol + "', expected W, G, B or X");
+		}
+	}
+
+	/**
+	 * Close the current line: the first non-empty line sets the width, the others must match it
+	 */
+	private void endLine() {
+		inToken = false;
+		if (lineCells == 0)
+			return;
+		if (numRow == 0)
+			numCol = lineCells;
+		else if (lineCells != numCol)
+			throw new IllegalArgumentException("Line " + line + " has " + lineCells + " cells, expected " + numCol + ".");
+		numRow++;
+		lineCells = 0;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException("Line " + line + ", column " + column + ": " + message + ".");
+	}
+
+	public int getNumOfCol() {
+		return numCol;
+	}
+
+	public int getNumOfRow() {
+		return numRow;
+	}
+
+	/**
+	 * @param col
+	 * @param row
+	 * @return State type ordinal of the cell
+	 */
+	public byte getStateType(int col, int row) {
+		return stateTypes[row * numCol + col];
+	}
+}
@@ -1,13 +1,13 @@
 package fileManager;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-// import java.util.Collections;
 import java.util.Date;
-import java.util.List;
 
 import controller.GridEnvironment;
-import entities.StateType;
+import controller.StateIndex;
 import entities.Constants;
 import entities.StateCoordinate;
 
@@ -15,56 +15,169 @@ public class LogFileController {
 	private String timestamp;
 	private String fileName;
 
-	//Store headers of State/Wall type
-	private List<String> headers;
-	private List<List<Double>> data;
+	//State types of the grid, used for the headers of every format
+	private int numCol, numRow;
+	private byte[] stateTypes;
+
+	//Rows are streamed to the log file as they are added, nothing is kept in memory
+	private LogFormat format;
+	private LogPolicy policy;
+	private Writer csvWriter;
+	private StringBuilder row;
+	private BinaryTraceWriter traceWriter;
+	private DeltaTraceWriter deltaWriter;
+
+	//Utilities of every cell of the latest iteration and number of added iterations, to write the final iteration on close
+	private double[] utilities;
+	private int iteration;
+	private int lastWrittenIteration = -1;
 
 	/**
-	 * Constructor to define header names
+	 * Constructor to define header names and open the CSV log file
 	 * @param fileName,grid
 	 */
 	public LogFileController(String fileName, GridEnvironment grid) {
+		this(fileName, grid, LogFormat.CSV, LogPolicy.everyIteration());
+	}
+
+	/**
+	 * Constructor to open the log file in the given format, logging every iteration
+	 * @param fileName,grid,format
+	 */
+	public LogFileController(String fileName, GridEnvironment grid, LogFormat format) {
+		this(fileName, grid, format, LogPolicy.everyIteration());
+	}
+
+	/**
+	 * Constructor to open the log file in the given format with the given log policy
+	 * @param fileName,grid,format,policy
+	 */
+	public LogFileController(String fileName, GridEnvironment grid, LogFormat format, LogPolicy policy) {
 		Date date = new Date();
 		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
 		this.fileName = fileName;
 		this.timestamp = dateFormat.format(date);
-		this.headers = new ArrayList<String>();
-		this.data = new ArrayList<List<Double>>();
+		this.format = format;
+		this.policy = policy;
+		String logName = this.fileName + "_" + this.timestamp + "_K = " + Constants.K;
 
-		for (int c = 0; c < Constants.NUM_COL; c++) {
-			for (int r = 0; r < Constants.NUM_ROW; r++) {
-				if (grid.getCell(new StateCoordinate(c, r)).getStateType() == StateType.WALL)
-					headers.add("\"Wall: (" + c + ", " + r + ")\"");
-				else
-					headers.add("\"State: (" + c + ", " + r + ")\"");
+		this.numCol = grid.getNumOfCol();
+		this.numRow = grid.getNumOfRow();
+		this.stateTypes = new byte[numCol * numRow];
+		for (int c = 0; c < numCol; c++) {
+			for (int r = 0; r < numRow; r++) {
+				stateTypes[c * numRow + r] = (byte) grid.getCell(new StateCoordinate(c, r)).getStateType().ordinal();
+			}
+		}
+		//Walls are not solved, their columns keep the utility they start with
+		this.utilities = new double[stateTypes.length];
+		for (int c = 0; c < numCol; c++) {
+			for (int r = 0; r < numRow; r++) {
+				utilities[c * numRow + r] = grid.getCell(new StateCoordinate(c, r)).getUtility();
+			}
+		}
+
+		try {
+			if (policy.getMode() == LogPolicy.Mode.DELTA) {
+				Path path = writeToCSV.logFile(logName, DeltaTraceWriter.EXTENSION);
+				this.deltaWriter = new DeltaTraceWriter(path, numCol, numRow, stateTypes, policy.getThreshold());
+			} else if (format == LogFormat.BINARY) {
+				Path path = writeToCSV.logFile(logName, BinaryTraceWriter.EXTENSION);
+				this.traceWriter = new BinaryTraceWriter(path, numCol, numRow, stateTypes);
+			} else {
+				this.row = new StringBuilder();
+				this.csvWriter = writeToCSV.open(logName);
+				writeToCSV.writeHeaders(csvWriter, numCol, numRow, stateTypes);
 			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Function to keep adding the incoming List of utilities for corresponding states in each iteration
-	 * @param grida
+	 * Function to log the utilities of the states in each iteration
+	 * @param grid
 	 */
 	public void add(GridEnvironment grid) {
-		List<Double> incoming = new ArrayList<Double>();
+		for (int c = 0; c < numCol; c++) {
+			for (int r = 0; r < numRow; r++) {
+				utilities[c * numRow + r] = grid.getCell(new StateCoordinate(c, r)).getUtility();
+			}
+		}
+		addRow();
+	}
+
+	/**
+	 * Log the utilities of the non-wall states of a state index, walls keep their initial utility
+	 * @param stateUtilities utilities in state index order
+	 * @param index
+	 */
+	public void add(double[] stateUtilities, StateIndex index) {
+		for (int s = 0; s < index.getNumOfStates(); s++)
+			utilities[index.getCell(s)] = stateUtilities[s];
+		addRow();
+	}
 
-		for (int c = 0; c < Constants.NUM_COL; c++) {
-			for (int r = 0; r < Constants.NUM_ROW; r++) {
-				incoming.add(grid.getCell(new StateCoordinate(c, r)).getUtility());
+	/**
+	 * Log the current row of utilities according to the log policy
+	 */
+	private void addRow() {
+		int current = iteration++;
+		try {
+			switch (policy.getMode()) {
+			case EVERY_NTH:
+				if (current % policy.getInterval() == 0) {
+					writeRow(utilities);
+					lastWrittenIteration = current;
+				}
+				break;
+			case DELTA:
+				if (deltaWriter != null)
+					deltaWriter.writeDelta(current, utilities);
+				break;
+			case FINAL_ONLY:
+				break;
+			default:
+				writeRow(utilities);
+				lastWrittenIteration = current;
 			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
+	}
 
-		this.data.add(incoming);
+	private void writeRow(double[] values) throws IOException {
+		if (traceWriter != null)
+			traceWriter.writeRow(values);
+		else if (csvWriter != null)
+			writeToCSV.writeRow(csvWriter, row, values);
 	}
 
+	/**
+	 * Write the final iteration if the log policy has not written it yet, then flush and close the log file
+	 */
 	public void finalConvertToCSV() {
-		List<List<Double>> incomingArray = this.incomingArr(this.data);
-		writeToCSV.writeToFile(this.fileName + "_" + this.timestamp + "_K = "+ Constants.K, this.headers, incomingArray);
-	}
+		try {
+			int last = iteration - 1;
+			if (last >= 0 && lastWrittenIteration != last) {
+				if (deltaWriter != null)
+					deltaWriter.writeFinal(last, utilities);
+				else
+					writeRow(utilities);
+			}
 
-	private List<List<Double>> incomingArr(List<List<Double>> incoming) {
-		List<List<Double>> incomingArray = new ArrayList<List<Double>>(incoming);
-		return incomingArray;
+			if (csvWriter != null)
+				csvWriter.close();
+			if (traceWriter != null)
+				traceWriter.close();
+			if (deltaWriter != null)
+				deltaWriter.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		csvWriter = null;
+		traceWriter = null;
+		deltaWriter = null;
 	}
 }
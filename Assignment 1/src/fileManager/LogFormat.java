@@ -0,0 +1,8 @@
+package fileManager;
+
+public enum LogFormat {
+	// Text rows of Double.toString values, one column per state (.csv)
+	CSV,
+	// Header with grid size and state types, then fixed-width float64 rows per iteration (.trace)
+	BINARY;
+}
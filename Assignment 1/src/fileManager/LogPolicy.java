@@ -0,0 +1,89 @@
+package fileManager;
+
+/**
+ * Which iterations (and which states) LogFileController writes.
+ */
+public class LogPolicy {
+	public enum Mode {
+		// Full utility row of every iteration
+		EVERY_ITERATION,
+		// Full row of every Nth iteration, plus the final iteration
+		EVERY_NTH,
+		// Sparse rows of the states whose utility changed by more than a threshold since they were last logged
+		DELTA,
+		// Full row of the final iteration only
+		FINAL_ONLY;
+	}
+
+	private final Mode mode;
+	private final int interval;
+	private final double threshold;
+
+	private LogPolicy(Mode mode, int interval, double threshold) {
+		this.mode = mode;
+		this.interval = interval;
+		this.threshold = threshold;
+	}
+
+	public static LogPolicy everyIteration() {
+		return new LogPolicy(Mode.EVERY_ITERATION, 1, 0);
+	}
+
+	/**
+	 * @param interval log iterations 0, N, 2N, ... and the final iteration
+	 */
+	public static LogPolicy everyNth(int interval) {
+		if (interval < 1)
+			throw new IllegalArgumentException("Log interval must be a positive integer.");
+		return new LogPolicy(Mode.EVERY_NTH, interval, 0);
+	}
+
+	/**
+	 * Delta rows are written to a .delta file (see DeltaTraceWriter), whatever the log format.
+	 * Replayed utilities are within threshold of the logged ones, the final iteration is exact.
+	 * @param threshold
+	 */
+	public static LogPolicy delta(double threshold) {
+		if (threshold < 0)
+			throw new IllegalArgumentException("Delta threshold must not be negative.");
+		return new LogPolicy(Mode.DELTA, 1, threshold);
+	}
+
+	public static LogPolicy finalOnly() {
+		return new LogPolicy(Mode.FINAL_ONLY, 1, 0);
+	}
+
+	/**
+	 * Log policy from a command line argument: EVERY_ITERATION, FINAL_ONLY, EVERY_NTH:interval or DELTA:threshold
+	 * @param arg
+	 */
+	public static LogPolicy parse(String arg) {
+		String[] parts = arg.split(":", 2);
+		Mode mode = Mode.valueOf(parts[0]);
+		if ((mode == Mode.EVERY_NTH || mode == Mode.DELTA) != (parts.length == 2))
+			throw new IllegalArgumentException("Log policy must be EVERY_ITERATION, FINAL_ONLY, EVERY_NTH:interval or DELTA:threshold.");
+
+		switch (mode) {
+		case EVERY_NTH:
+			return everyNth(Integer.parseInt(parts[1]));
+		case DELTA:
+			return delta(Double.parseDouble(parts[1]));
+		case FINAL_ONLY:
+			return finalOnly();
+		default:
+			return everyIteration();
+		}
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getInterval() {
+		return interval;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+}
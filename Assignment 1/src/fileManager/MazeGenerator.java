@@ -0,0 +1,150 @@
+package fileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Generates grid world files of any size in the W/G/B/X token format of presetGridWorlds.
+ * Rows are streamed to the file one at a time, so memory use depends on the width only.
+ *
+ * With a corridor spacing, every spacing-th row and column is a wall line, splitting the grid into
+ * rooms with one door per room side. Remaining cells are walls with the wall density, otherwise
+ * goal or penalty cells with the given ratios, otherwise white.
+ */
+public class MazeGenerator {
+	private final int numCol, numRow;
+	private final double wallDensity;
+	private final double goalRatio;
+	private final double penaltyRatio;
+	private final int corridorSpacing;
+	private final long seed;
+
+	/**
+	 * @param numCol
+	 * @param numRow
+	 * @param wallDensity fraction of the cells that are random walls
+	 * @param goalRatio fraction of the other cells that are green
+	 * @param penaltyRatio fraction of the other cells that are brown
+	 * @param corridorSpacing distance between wall lines, 0 for no wall lines
+	 * @param seed
+	 */
+	public MazeGenerator(int numCol, int numRow, double wallDensity, double goalRatio, double penaltyRatio,
+			int corridorSpacing, long seed) {
+		if (numCol <= 0 || numRow <= 0)
+			throw new IllegalArgumentException("Column and Row must be a positive integer.");
+		if (wallDensity < 0 || wallDensity >= 1)
+			throw new IllegalArgumentException("Wall density must be in [0, 1).");
+		if (goalRatio < 0 || penaltyRatio < 0 || goalRatio + penaltyRatio > 1)
+			throw new IllegalArgumentException("Goal and penalty ratios must be positive and sum to at most 1.");
+		if (corridorSpacing == 1 || corridorSpacing < 0)
+			throw new IllegalArgumentException("Corridor spacing must be 0 or at least 2.");
+
+		this.numCol = numCol;
+		this.numRow = numRow;
+		this.wallDensity = wallDensity;
+		this.goalRatio = goalRatio;
+		this.penaltyRatio = penaltyRatio;
+		this.corridorSpacing = corridorSpacing;
+		this.seed = seed;
+	}
+
+	/**
+	 * Write the grid row by row
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void write(Writer writer) throws IOException {
+		SplittableRandom random = new SplittableRandom(seed);
+		StringBuilder row = new StringBuilder(numCol * 2);
+
+		for (int r = 0; r < numRow; r++) {
+			row.setLength(0);
+			for (int c = 0; c < numCol; c++) {
+				if (c > 0)
+					row.append(' ');
+				row.append(cellSymbol(c, r, random));
+			}
+			row.append('\n');
+			writer.append(row);
+		}
+	}
+
+	/**
+	 * Write the grid to a file in presetGridWorlds, where GridEnvironment reads grid files from
+	 * @param fileName
+	 * @return Path of the written file
+	 * @throws IOException
+	 */
+	public Path write(String fileName) throws IOException {
+		String filePath = new File("").getAbsolutePath();
+		Path path = Paths.get(filePath.concat("/presetGridWorlds/" + fileName));
+		Files.createDirectories(path.getParent());
+		try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+			write(writer);
+		}
+		return path;
+	}
+
+	private char cellSymbol(int c, int r, SplittableRandom random) {
+		//1. Wall lines of the corridor structure, except one door per room side
+		boolean isDoor = false;
+		if (corridorSpacing > 0) {
+			boolean rowLine = r % corridorSpacing == corridorSpacing - 1;
+			boolean colLine = c % corridorSpacing == corridorSpacing - 1;
+			if (rowLine && colLine)
+				return 'X';
+			if (rowLine && c % corridorSpacing != door(r, c / corridorSpacing))
+				return 'X';
+			if (colLine && r % corridorSpacing != door(-1 - c, r / corridorSpacing))
+				return 'X';
+			isDoor = rowLine || colLine;
+		}
+
+		//2. Random walls (doors are kept open), then goals and penalties among the open cells
+		if (random.nextDouble() < wallDensity && !isDoor)
+			return 'X';
+		double type = random.nextDouble();
+		if (type < goalRatio)
+			return 'G';
+		if (type < goalRatio + penaltyRatio)
+			return 'B';
+		return 'W';
+	}
+
+	/**
+	 * Position of the door on one room side, derived from the seed so rows can be generated independently
+	 * @param line wall line (row index, or -1 - column index for column lines)
+	 * @param room index of the room along the line
+	 * @return Offset of the door within the room side
+	 */
+	private int door(int line, int room) {
+		return new SplittableRandom(seed ^ (line * 0x9E3779B97F4A7C15L + room)).nextInt(corridorSpacing - 1);
+	}
+
+	/**
+	 * Generate a grid file into presetGridWorlds
+	 * @param args file name, columns, rows, [wall density, default 0.1] [goal ratio, default 0.05]
+	 *             [penalty ratio, default 0.05] [corridor spacing, default 0] [seed, default 0]
+	 */
+	public static void main(String[] args) throws IOException {
+		String fileName = args[0];
+		int numCol = Integer.parseInt(args[1]);
+		int numRow = Integer.parseInt(args[2]);
+		double wallDensity = args.length > 3 ? Double.parseDouble(args[3]) : 0.1;
+		double goalRatio = args.length > 4 ? Double.parseDouble(args[4]) : 0.05;
+		double penaltyRatio = args.length > 5 ? Double.parseDouble(args[5]) : 0.05;
+		int corridorSpacing = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+		long seed = args.length > 7 ? Long.parseLong(args[7]) : 0;
+
+		MazeGenerator generator = new MazeGenerator(numCol, numRow, wallDensity, goalRatio, penaltyRatio,
+				corridorSpacing, seed);
+		Path path = generator.write(fileName);
+		System.out.println("Grid written to " + path);
+	}
+}
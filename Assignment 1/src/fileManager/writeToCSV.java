@@ -1,44 +1,74 @@
 package fileManager;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import entities.StateType;
 
 public class writeToCSV {
+	private static final String LOG_DIRECTORY = "/logs/PolicyIteration/Original Grid/";
 
 	/**
-	 * Write headers and data into a CSV file
+	 * Open a buffered writer for a CSV file in the log directory
 	 * @param fileName
-	 * @param headers
-	 * @param data
+	 * @return
+	 * @throws IOException
 	 */
-	public static void writeToFile(String fileName, List<String> headers, List<List<Double>> data) {
-		FileWriter csvWriter;
-		try {
-			String filePath = new File("").getAbsolutePath();
-			csvWriter = new FileWriter(filePath.concat("/logs/PolicyIteration/Original Grid/" + fileName + ".csv"));
+	public static Writer open(String fileName) throws IOException {
+		return Files.newBufferedWriter(logFile(fileName, ".csv"), StandardCharsets.UTF_8);
+	}
 
-			//Insert headers
-			for (String header : headers) {
-				csvWriter.append(header);
-				csvWriter.append(",");
-			}
-			csvWriter.append("\n");
+	/**
+	 * Path of a log file in the log directory, the directory is created if missing
+	 * @param fileName
+	 * @param extension
+	 * @return
+	 * @throws IOException
+	 */
+	public static Path logFile(String fileName, String extension) throws IOException {
+		String filePath = new File("").getAbsolutePath();
+		Path path = Paths.get(filePath.concat(LOG_DIRECTORY + fileName + extension));
+		Files.createDirectories(path.getParent());
+		return path;
+	}
 
-			// Insert data 
-			for (List<Double> iteration : data) {
-				for (Double value : iteration) {
-					csvWriter.append(Double.toString(value));
-					csvWriter.append(",");
-				}
-				csvWriter.append("\n");
+	/**
+	 * Write the header row: one "State: (c, r)" or "Wall: (c, r)" column per state, col-major
+	 * @param csvWriter
+	 * @param numCol
+	 * @param numRow
+	 * @param stateTypes state type ordinal of every state
+	 * @throws IOException
+	 */
+	public static void writeHeaders(Writer csvWriter, int numCol, int numRow, byte[] stateTypes) throws IOException {
+		for (int c = 0; c < numCol; c++) {
+			for (int r = 0; r < numRow; r++) {
+				String type = stateTypes[c * numRow + r] == StateType.WALL.ordinal() ? "Wall" : "State";
+				csvWriter.append("\"" + type + ": (" + c + ", " + r + ")\"");
+				csvWriter.append(",");
 			}
+		}
+		csvWriter.append("\n");
+	}
 
-			csvWriter.flush();
-			csvWriter.close();
-		} catch (IOException e) {
-			e.printStackTrace();
+	/**
+	 * Write one row of utilities, formatted with Double.toString
+	 * @param csvWriter
+	 * @param row reused buffer for the row text
+	 * @param values
+	 * @throws IOException
+	 */
+	public static void writeRow(Writer csvWriter, StringBuilder row, double[] values) throws IOException {
+		row.setLength(0);
+		for (double value : values) {
+			row.append(value).append(',');
 		}
+		row.append('\n');
+		csvWriter.append(row);
 	}
 }
@@ -0,0 +1,207 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import controller.GridEnvironment;
+import entities.Parameters;
+import entities.StateType;
+import solver.CompiledGrid;
+import solver.EvaluationMode;
+import solver.FlatPolicyIteration;
+import solver.FlatValueIteration;
+import solver.PrioritizedSweeping;
+
+/**
+ * Headless batch runner: solves every job of a manifest concurrently and writes one summary row per job.
+ *
+ * Manifest lines are "grid file, algorithm, discount, K, epsilon, white reward, green reward, brown reward".
+ * Grid files are read from presetGridWorlds, algorithm is ValueIteration, PolicyIteration or PrioritizedSweeping.
+ * Empty or missing fields take the value of Constants, blank lines and lines starting with '#' are skipped.
+ * The summary reports sweeps (value iteration), policy iterations or state updates (prioritized sweeping) as iterations.
+ *
+ * Every job loads and compiles its own grid with its own Parameters and runs single threaded,
+ * so jobs share no state. Jobs run on a fixed size thread pool.
+ */
+public class BatchRunner {
+	private static final String SUMMARY_HEADER = "job,grid,algorithm,discount,K,epsilon,white reward,green reward,"
+			+ "brown reward,states,iterations,backups,load ms,solve ms,min utility,max utility,mean utility,error";
+
+	/**
+	 * One line of the manifest
+	 */
+	private static final class Job {
+		final int number;
+		final String gridFile;
+		final String algorithm;
+		final Parameters parameters;
+
+		Job(int number, String gridFile, String algorithm, Parameters parameters) {
+			this.number = number;
+			this.gridFile = gridFile;
+			this.algorithm = algorithm;
+			this.parameters = parameters;
+		}
+	}
+
+	/**
+	 * @param args manifest file, [summary file, default logs/Batch/summary.csv]
+	 *             [threads, default number of processors]
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Path manifest = Paths.get(args[0]);
+		Path summary = Paths.get(args.length > 1 ? args[1] : "logs/Batch/summary.csv");
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		List<Job> jobs = readManifest(manifest);
+		System.out.printf("Running %d jobs on %d threads\n", jobs.size(), threads);
+
+		long start = System.nanoTime();
+		run(jobs, summary, threads);
+		System.out.printf("Summary written to %s (%.1f s)\n", summary.toAbsolutePath(), (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Run the jobs on a pool of the given size and write the summary in manifest order
+	 * @param jobs
+	 * @param summary
+	 * @param threads
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	static void run(List<Job> jobs, Path summary, int threads) throws IOException, InterruptedException {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<String>> results = new ArrayList<>(jobs.size());
+			for (Job job : jobs)
+				results.add(pool.submit(() -> runJob(job)));
+
+			if (summary.getParent() != null)
+				Files.createDirectories(summary.getParent());
+			try (Writer writer = Files.newBufferedWriter(summary, StandardCharsets.UTF_8)) {
+				writer.append(SUMMARY_HEADER).append('\n');
+				for (Future<String> result : results) {
+					try {
+						writer.append(result.get()).append('\n');
+					} catch (ExecutionException e) {
+						//runJob reports its own errors, only errors of the pool itself end up here
+						e.printStackTrace();
+					}
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Load, compile and solve the grid of one job
+	 * @param job
+	 * @return Summary row of the job, with the error message if the job failed
+	 */
+	private static String runJob(Job job) {
+		Parameters p = job.parameters;
+		String row = job.number + ",\"" + job.gridFile + "\"," + job.algorithm + "," + p.getDiscountFactor() + ","
+				+ p.getK() + "," + p.getEpsilon() + "," + p.getReward(StateType.WHITE) + ","
+				+ p.getReward(StateType.GREEN) + "," + p.getReward(StateType.BROWN) + ",";
+		try {
+			//1. Load and compile the grid of this job only
+			long start = System.nanoTime();
+			GridEnvironment grid = new GridEnvironment(job.gridFile);
+			CompiledGrid compiledGrid = new CompiledGrid(grid.getStateIndex(), p);
+			long loaded = System.nanoTime();
+
+			//2. Solve on this thread
+			long iterations, backups;
+			switch (job.algorithm) {
+			case "ValueIteration": {
+				FlatValueIteration solver = new FlatValueIteration(compiledGrid);
+				iterations = ValueIteration.solve(compiledGrid, solver, p.getThreshold(), null);
+				backups = solver.getBackups();
+				break;
+			}
+			case "PolicyIteration": {
+				FlatPolicyIteration solver = new FlatPolicyIteration(compiledGrid);
+				iterations = PolicyIteration.solve(compiledGrid, solver, EvaluationMode.FIXED_K, p.getK(),
+						p.getThreshold(), null);
+				backups = solver.getBackups();
+				break;
+			}
+			default: {
+				PrioritizedSweeping solver = new PrioritizedSweeping(compiledGrid);
+				iterations = solver.solve(p.getThreshold());
+				backups = solver.getBackups();
+			}
+			}
+			long solved = System.nanoTime();
+
+			//3. Results
+			double[] u = compiledGrid.getUtilities();
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sum = 0;
+			for (double utility : u) {
+				min = Math.min(min, utility);
+				max = Math.max(max, utility);
+				sum += utility;
+			}
+			return row + String.format("%d,%d,%d,%.3f,%.3f,%.6f,%.6f,%.6f,", u.length, iterations, backups,
+					(loaded - start) / 1e6, (solved - loaded) / 1e6, min, max, sum / u.length);
+		} catch (RuntimeException e) {
+			System.out.println("Job " + job.number + " failed: " + e);
+			return row + ",,,,,,,,\"" + e.toString().replace("\"", "\"\"") + "\"";
+		}
+	}
+
+	/**
+	 * Read the jobs of a manifest file
+	 * @param manifest
+	 * @return Jobs in manifest order
+	 * @throws IOException
+	 */
+	static List<Job> readManifest(Path manifest) throws IOException {
+		List<Job> jobs = new ArrayList<>();
+		List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+
+			String[] fields = line.split(",", -1);
+			try {
+				String algorithm = field(fields, 1, "ValueIteration");
+				if (!algorithm.equals("ValueIteration") && !algorithm.equals("PolicyIteration")
+						&& !algorithm.equals("PrioritizedSweeping"))
+					throw new IllegalArgumentException("Unknown algorithm " + algorithm + ".");
+
+				Parameters defaults = Parameters.DEFAULT;
+				Parameters parameters = new Parameters(
+						Float.parseFloat(field(fields, 2, Float.toString(defaults.getDiscountFactor()))),
+						Integer.parseInt(field(fields, 3, Integer.toString(defaults.getK()))),
+						Float.parseFloat(field(fields, 4, Float.toString(defaults.getEpsilon()))),
+						Float.parseFloat(field(fields, 5, Float.toString(defaults.getReward(StateType.WHITE)))),
+						Float.parseFloat(field(fields, 6, Float.toString(defaults.getReward(StateType.GREEN)))),
+						Float.parseFloat(field(fields, 7, Float.toString(defaults.getReward(StateType.BROWN)))));
+				jobs.add(new Job(jobs.size() + 1, fields[0].trim(), algorithm, parameters));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage(), e);
+			}
+		}
+		return jobs;
+	}
+
+	private static String field(String[] fields, int i, String defaultValue) {
+		return i < fields.length && !fields[i].trim().isEmpty() ? fields[i].trim() : defaultValue;
+	}
+}
@@ -0,0 +1,61 @@
+package main;
+
+import controller.GridEnvironment;
+import entities.Parameters;
+import solver.CompiledGrid;
+import solver.FlatValueIteration;
+import solver.IncrementalPlanner;
+
+/**
+ * Solves a grid, then changes cells one at a time and re-converges from the previous solution after every
+ * edit. Each edit is compared with solving the edited grid from scratch with value iteration.
+ */
+public class IncrementalReplanning {
+
+	/**
+	 * @param args grid file, [edits "col,row,type;col,row,type" with type 'W', 'G', 'B' or 'X',
+	 *             default "2,2,X;4,1,G;2,2,W"]
+	 */
+	public static void main(String[] args) {
+		String fileName = args.length > 0 ? args[0] : "preset-1.txt";
+		String edits = args.length > 1 ? args[1] : "2,2,X;4,1,G;2,2,W";
+		double threshold = Parameters.DEFAULT.getThreshold();
+
+		//1. Solve the grid
+		GridEnvironment grid = new GridEnvironment(fileName);
+		IncrementalPlanner planner = new IncrementalPlanner(grid);
+		System.out.printf("Initial Solve : %d backups\n", planner.getBackups());
+		System.out.println("edit\t\tupdates\t\tbackups\t\tfrom scratch\tmax utility difference");
+
+		//2. Edit the planned grid and a copy solved from scratch the same way
+		GridEnvironment edited = new GridEnvironment(fileName);
+		for (String edit : edits.split(";")) {
+			String[] fields = edit.split(",");
+			int col = Integer.parseInt(fields[0].trim());
+			int row = Integer.parseInt(fields[1].trim());
+			char stateType = fields[2].trim().charAt(0);
+
+			long backups = planner.getBackups();
+			long updates = planner.setCellType(col, row, stateType);
+			backups = planner.getBackups() - backups;
+
+			edited.setCellType(col, row, stateType);
+			CompiledGrid solved = new CompiledGrid(edited);
+			FlatValueIteration solver = new FlatValueIteration(solved);
+			ValueIteration.solve(solved, solver, threshold, null);
+
+			//Both grids have the same walls, so their states are in the same order
+			double[] utilities = planner.getCompiledGrid().getUtilities();
+			double maxDifference = 0;
+			for (int s = 0; s < utilities.length; s++)
+				maxDifference = Math.max(maxDifference, Math.abs(utilities[s] - solved.getUtilities()[s]));
+
+			System.out.printf("(%d, %d) %c\t%d\t\t%d\t\t%d\t\t%.6f\n", col, row, stateType, updates, backups,
+					solver.getBackups(), maxDifference);
+		}
+
+		//3. Policy of the edited grid
+		planner.writeBack();
+		grid.printPolicy();
+	}
+}
@@ -0,0 +1,55 @@
+package main;
+
+import controller.GridEnvironment;
+import entities.Parameters;
+import solver.CompiledGrid;
+import solver.FlatValueIteration;
+import solver.LearningRule;
+import solver.TabularAgent;
+
+/**
+ * Trains a tabular Q-learning or SARSA agent on a grid and reports, after every round of episodes,
+ * the throughput and how far the learned utilities and policy still are from value iteration.
+ */
+public class ModelFreeLearning {
+
+	/**
+	 * @param args grid file, [Q_LEARNING or SARSA, default Q_LEARNING] [episodes per round, default 100000]
+	 *             [rounds, default 10] [episode length, default 100] [exploration, default 0.1]
+	 *             [threads, default number of processors] [seed, default 0]
+	 */
+	public static void main(String[] args) {
+		String fileName = args.length > 0 ? args[0] : "preset-1.txt";
+		LearningRule rule = args.length > 1 ? LearningRule.valueOf(args[1]) : LearningRule.Q_LEARNING;
+		long episodes = args.length > 2 ? Long.parseLong(args[2]) : 100_000;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		int episodeLength = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+		double exploration = args.length > 5 ? Double.parseDouble(args[5]) : 0.1;
+		int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 7 ? Long.parseLong(args[7]) : 0;
+
+		//1. Reference solution of value iteration
+		GridEnvironment grid = new GridEnvironment(fileName);
+		CompiledGrid solved = new CompiledGrid(grid);
+		ValueIteration.solve(solved, new FlatValueIteration(solved), Parameters.DEFAULT.getThreshold(), null);
+
+		//2. Train on its own compiled grid, the agent only samples transitions from it
+		CompiledGrid simulator = new CompiledGrid(grid);
+		TabularAgent agent = new TabularAgent(simulator, rule, exploration, episodeLength);
+		System.out.printf("%s on %s: %d states, episodes of %d steps, exploration %.2f, %d threads\n", rule, fileName,
+				simulator.getNumOfStates(), episodeLength, exploration, threads);
+		System.out.println("episodes\tsteps\t\tepisodes/s\tsteps/s\t\tmax error\tpolicy differences");
+
+		long time = 0;
+		for (int round = 0; round < rounds; round++) {
+			long start = System.nanoTime();
+			agent.train(episodes, threads, seed + round);
+			time += System.nanoTime() - start;
+
+			double seconds = time / 1e9;
+			System.out.printf("%d\t\t%d\t%.0f\t\t%.3g\t\t%.4f\t\t%d\n", agent.getEpisodes(), agent.getSteps(),
+					agent.getEpisodes() / seconds, agent.getSteps() / seconds, agent.maxError(solved.getUtilities()),
+					agent.policyDifferences(solved));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.GridEnvironment;
+import controller.StateIndex;
+import entities.Parameters;
+import entities.StateType;
+import solver.ParameterSweep;
+
+/**
+ * Value iteration over every combination of the given discount factors, epsilons and rewards on one grid.
+ * The grid is loaded and indexed once, then the combinations are solved in parallel (see ParameterSweep).
+ * Writes one row per combination: parameters, sweeps to converge, time and the utility of every state.
+ */
+public class ParameterSweepExperiment {
+
+	/**
+	 * @param args grid file, [discount factors] [epsilons] [white rewards] [green rewards] [brown rewards]
+	 *             [threads, default number of processors] [warm start, default true]
+	 *             [output file, default logs/ParameterSweep/[grid file].csv]
+	 *             Lists are comma separated, "-" or missing takes the value of Constants
+	 */
+	public static void main(String[] args) throws IOException {
+		String fileName = args[0];
+		Parameters defaults = Parameters.DEFAULT;
+		float[] discounts = values(args, 1, defaults.getDiscountFactor());
+		float[] epsilons = values(args, 2, defaults.getEpsilon());
+		float[] whiteRewards = values(args, 3, defaults.getReward(StateType.WHITE));
+		float[] greenRewards = values(args, 4, defaults.getReward(StateType.GREEN));
+		float[] brownRewards = values(args, 5, defaults.getReward(StateType.BROWN));
+		int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+		boolean warmStart = args.length > 7 ? Boolean.parseBoolean(args[7]) : true;
+		Path output = Paths.get(args.length > 8 ? args[8] : "logs/ParameterSweep/" + fileName + ".csv");
+
+		List<Parameters> combinations = new ArrayList<>();
+		for (float discount : discounts)
+			for (float epsilon : epsilons)
+				for (float white : whiteRewards)
+					for (float green : greenRewards)
+						for (float brown : brownRewards)
+							combinations.add(new Parameters(discount, defaults.getK(), epsilon, white, green, brown));
+
+		//1. Load and index the grid once
+		long start = System.nanoTime();
+		StateIndex index = new GridEnvironment(fileName).getStateIndex();
+		long loaded = System.nanoTime();
+
+		//2. Solve all combinations
+		List<ParameterSweep.Result> results = new ParameterSweep(index).run(combinations, threads, warmStart);
+		long solved = System.nanoTime();
+
+		writeResults(output, index, results);
+
+		long sweeps = 0, backups = 0;
+		for (ParameterSweep.Result result : results) {
+			sweeps += result.getIterations();
+			backups += result.getBackups();
+		}
+		System.out.printf("%d combinations, %s start on %d threads\n", results.size(), warmStart ? "warm" : "cold",
+				threads);
+		System.out.printf("Load & index : %.3f ms, solve : %.3f ms\n", (loaded - start) / 1e6, (solved - loaded) / 1e6);
+		System.out.printf("Total Sweeps : %d\n", sweeps);
+		System.out.printf("Total Bellman Backups : %d\n", backups);
+		System.out.println("Results written to " + output.toAbsolutePath());
+	}
+
+	/**
+	 * Write the result table: one row per combination, one utility column per state
+	 * @param output
+	 * @param index
+	 * @param results
+	 * @throws IOException
+	 */
+	private static void writeResults(Path output, StateIndex index, List<ParameterSweep.Result> results)
+			throws IOException {
+		if (output.getParent() != null)
+			Files.createDirectories(output.getParent());
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			writer.append("discount,epsilon,white reward,green reward,brown reward,iterations,backups,ms,warm start from");
+			for (int s = 0; s < index.getNumOfStates(); s++)
+				writer.append(",\"State: (" + index.getCol(s) + ", " + index.getRow(s) + ")\"");
+			writer.append('\n');
+
+			StringBuilder row = new StringBuilder();
+			for (ParameterSweep.Result result : results) {
+				Parameters p = result.getParameters();
+				row.setLength(0);
+				row.append(p.getDiscountFactor()).append(',').append(p.getEpsilon()).append(',')
+						.append(p.getReward(StateType.WHITE)).append(',').append(p.getReward(StateType.GREEN)).append(',')
+						.append(p.getReward(StateType.BROWN)).append(',').append(result.getIterations()).append(',')
+						.append(result.getBackups()).append(',').append(String.format("%.3f", result.getNanoseconds() / 1e6))
+						.append(',').append(result.getWarmStartFrom());
+				for (double utility : result.getUtilities())
+					row.append(',').append(utility);
+				row.append('\n');
+				writer.append(row);
+			}
+		}
+	}
+
+	private static float[] values(String[] args, int i, float defaultValue) {
+		if (args.length <= i || args[i].equals("-"))
+			return new float[] { defaultValue };
+		String[] fields = args[i].split(",");
+		float[] values = new float[fields.length];
+		for (int j = 0; j < fields.length; j++)
+			values[j] = Float.parseFloat(fields[j].trim());
+		return values;
+	}
+}
@@ -1,11 +1,15 @@
 package main;
 
-import entities.State;
-import entities.StateType;
 import fileManager.LogFileController;
+import fileManager.LogFormat;
+import fileManager.LogPolicy;
+import solver.CompiledGrid;
+import solver.EvaluationMode;
+import solver.FlatPolicyIteration;
+import solver.SweepStrategy;
 import controller.GridEnvironment;
 import entities.Constants;
-import entities.StateCoordinate;
+import entities.Parameters;
 
 public class PolicyIteration {
 
@@ -13,57 +17,59 @@ public class PolicyIteration {
 	// private final static int K = 4;
 
 	public static void main(String[] args) {
-		GridEnvironment grid = new GridEnvironment("preset-1.txt");
+		//Grid file from presetGridWorlds, size is taken from the file
+		String fileName = args.length > 0 ? args[0] : "preset-1.txt";
+		//Sweep strategy of policy evaluation and number of worker threads for parallel strategies
+		SweepStrategy strategy = args.length > 1 ? SweepStrategy.valueOf(args[1]) : SweepStrategy.GAUSS_SEIDEL;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		//Fixed K sweeps, exact or adaptive policy evaluation
+		EvaluationMode evaluationMode = args.length > 3 ? EvaluationMode.valueOf(args[3]) : EvaluationMode.FIXED_K;
+		//Bounds on the number of sweeps of adaptive policy evaluation
+		int minAdaptiveK = args.length > 4 ? Integer.parseInt(args[4]) : Constants.MIN_ADAPTIVE_K;
+		int maxAdaptiveK = args.length > 5 ? Integer.parseInt(args[5]) : Constants.MAX_ADAPTIVE_K;
+		//Log file format and which iterations are logged (EVERY_ITERATION, FINAL_ONLY, EVERY_NTH:n, DELTA:threshold)
+		LogFormat logFormat = args.length > 6 ? LogFormat.valueOf(args[6]) : LogFormat.CSV;
+		LogPolicy logPolicy = args.length > 7 ? LogPolicy.parse(args[7]) : LogPolicy.everyIteration();
+
+		GridEnvironment grid = new GridEnvironment(fileName);
 
 		grid.printGridWorld();
-		runPolicyIteration(grid);
+		LogFileController logger = new LogFileController("PolicyIteration", grid, logFormat, logPolicy);
+		runPolicyIteration(grid, strategy, threads, evaluationMode, minAdaptiveK, maxAdaptiveK, logger);
 	}
 
 	/**
 	 * This function is used to run Policy Iteration on the given grid world to find optimal Policyp
+	 * Successors are read from the grid's state index
 	 * @param grid
+	 * @param strategy
+	 * @param threads
+	 * @param evaluationMode
+	 * @param minAdaptiveK
+	 * @param maxAdaptiveK
+	 * @param logger
 	 */
-	private static void runPolicyIteration(GridEnvironment grid) {
-		//Flag to check if there is a change in policy (new and updated)
-		boolean policyChanged;
-		int iteration = 1;
-	
-		LogFileController logger = new LogFileController("PolicyIteration", grid);
+	private static void runPolicyIteration(GridEnvironment grid, SweepStrategy strategy, int threads,
+			EvaluationMode evaluationMode, int minAdaptiveK, int maxAdaptiveK, LogFileController logger) {
+		//Tolerance of exact and adaptive policy evaluation, same as the value iteration convergence threshold
+		double threshold = Parameters.DEFAULT.getThreshold();
 		
 		//Display initial grid with State Type, Reward, and Initial Policy
 		System.out.println("Grid World Original :");
 		grid.print();
-		logger.add(grid);
-
-		do {
-			policyChanged = false;
 
-			// 1. Policy Evaluation
-			policyEvaluation(grid, Constants.K);
-
-			// 2. Policy Improvement 
-			for (int c = 0; c < Constants.NUM_COL; c++) {
-				for (int r = 0; r < Constants.NUM_ROW; r++) {
-					State currentCell = grid.getCell(new StateCoordinate(c, r));
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+		FlatPolicyIteration solver = new FlatPolicyIteration(compiledGrid, strategy, threads);
+		int iterations = solve(compiledGrid, solver, evaluationMode, Parameters.DEFAULT.getK(), minAdaptiveK,
+				maxAdaptiveK, threshold, logger);
+		solver.shutdown();
 
-					// If current cell is a wall, skip
-					if (currentCell.getStateType() == StateType.WALL)
-						continue;
-					
-					//Check if there is a change in policy after Policy Improvement
-					boolean changed = policyImprovement(currentCell, grid);
+		//Copy utilities & policies back to the grid for display
+		compiledGrid.writeBack(grid);
 
-					if (changed)
-						policyChanged = true;
-				}
-			}
-
-			iteration++;
-			logger.add(grid);
-		} while (policyChanged); //Continue until policy converges
-
-		System.out.printf("Total Iterations to Converge : %d\n", iteration-1);
-		grid.printExperimentParamters(false,0);
+		System.out.printf("Total Iterations to Converge : %d\n", iterations);
+		System.out.printf("Total Bellman Backups : %d\n", solver.getBackups());
+		grid.printExperimentParamters(false,compiledGrid.getParameters(),0);
 		grid.printPolicy();
 		grid.printStateUtilities();
 		grid.printUtilityGrid();
@@ -72,82 +78,66 @@ public class PolicyIteration {
 	}
 
 	/**
-	 * 1. Policy Evaluation
-	 * Calculates utilities for a given Policy.
-	 * @param grid
-	 * @return
+	 * Alternate policy evaluation and policy improvement until the policy is stable, without printing.
+	 * Adaptive policy evaluation uses the default bounds of Constants.
+	 * @param compiledGrid
+	 * @param solver
+	 * @param evaluationMode
+	 * @param k number of sweeps of fixed K policy evaluation
+	 * @param threshold tolerance of exact and adaptive policy evaluation
+	 * @param logger logs the initial utilities and every iteration, null to run without logging
+	 * @return Number of iterations to converge
 	 */
-	private static void policyEvaluation(GridEnvironment grid, int k) {
-		//k = Constant K: number of times Bellman update is executed to get next utility estimate 
-		for (int i = 0; i < k; i++) {
-			for (int c = 0; c < Constants.NUM_COL; c++) {
-				for (int r = 0; r < Constants.NUM_ROW; r++) {
-					//1. Get current reward & policy
-					State currentCell = grid.getCell(new StateCoordinate(c, r));
-					
-					//If current state is a Wall, then skip
-					if (currentCell.getStateType() == StateType.WALL)
-						continue;
-					
-					//2. Add the expected utilities of neighbouring cells(i.e. UP, LEFT, RIGHT)  based on current Policy
-					State[] neighbours = grid.getNeighboursOfCell(currentCell);
-					double up = Constants.PROBABILITY_UP * neighbours[0].getUtility();
-					double left = Constants.PROBABILITY_LEFT * neighbours[1].getUtility();
-					double right = Constants.PROBABILITY_RIGHT * neighbours[2].getUtility();
-
-					double futureEstimateUtility = up+left+right;
-
-					//3. Update Utility
-					float reward = currentCell.getStateType().getReward();
-					//Apply Simplified Belmman equation 
-					//Utility of a state = currentStateReward + Max Possible Discounted Future Reward
-					currentCell.setUtility(reward + Constants.DISCOUNT_FACTOR * futureEstimateUtility);
-				}
-			}
-		}
+	static int solve(CompiledGrid compiledGrid, FlatPolicyIteration solver, EvaluationMode evaluationMode, int k,
+			double threshold, LogFileController logger) {
+		return solve(compiledGrid, solver, evaluationMode, k, Constants.MIN_ADAPTIVE_K, Constants.MAX_ADAPTIVE_K,
+				threshold, logger);
 	}
 
 	/**
-	 * 2. Policy Improvement
-	 * @param currentCell
-	 * @param grid
-	 * @return True if change in policy (current vs updated)
+	 * Alternate policy evaluation and policy improvement until the policy is stable, without printing
+	 * @param compiledGrid
+	 * @param solver
+	 * @param evaluationMode
+	 * @param k number of sweeps of fixed K policy evaluation
+	 * @param minAdaptiveK minimum number of sweeps of adaptive policy evaluation
+	 * @param maxAdaptiveK maximum number of sweeps of adaptive policy evaluation
+	 * @param threshold tolerance of exact and adaptive policy evaluation
+	 * @param logger logs the initial utilities and every iteration, null to run without logging
+	 * @return Number of iterations to converge
 	 */
-	private static boolean policyImprovement(State currentCell, GridEnvironment grid) {
-		
-		//1. Find the maximum possible sub-utility
-		double[] maxUtility = new double[StateCoordinate.TOTAL_DIRECTIONS];
-		//Calculate utility of possible actions(direction) and get maximum to get best policy
-		for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++) {
-			State[] neighbours = grid.getNeighboursOfCell(currentCell, dir);
-			double up = Constants.PROBABILITY_UP * neighbours[0].getUtility();
-			double left = Constants.PROBABILITY_LEFT * neighbours[1].getUtility();
-			double right = Constants.PROBABILITY_RIGHT * neighbours[2].getUtility();
-
-			maxUtility[dir] = up + left + right;
-		}
-
-		int maxUtil = 0;
-		for (int x = 1; x < maxUtility.length; x++) {
-			if (maxUtility[x] > maxUtility[maxUtil])
-				maxUtil = x;
-		}
+	static int solve(CompiledGrid compiledGrid, FlatPolicyIteration solver, EvaluationMode evaluationMode, int k,
+			int minAdaptiveK, int maxAdaptiveK, double threshold, LogFileController logger) {
+		//Flag to check if there is a change in policy (new and updated)
+		boolean policyChanged;
+		int iteration = 0;
+		if (logger != null)
+			logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
 
-		// 2. Get the Current sub-utility 
-		State[] neighbours = grid.getNeighboursOfCell(currentCell);
-		double up = Constants.PROBABILITY_UP * neighbours[0].getUtility();
-		double left = Constants.PROBABILITY_LEFT * neighbours[1].getUtility();
-		double right = Constants.PROBABILITY_RIGHT * neighbours[2].getUtility();
+		do {
+			// 1. Policy Evaluation
+			switch (evaluationMode) {
+			case EXACT:
+				solver.exactPolicyEvaluation(threshold);
+				break;
+			case ADAPTIVE:
+				solver.adaptivePolicyEvaluation(threshold, minAdaptiveK, maxAdaptiveK);
+				break;
+			default:
+				solver.policyEvaluation(k);
+			}
 
-		double currSubUtility = up + left + right;
+			// 2. Policy Improvement 
+			//Check if there is a change in policy after Policy Improvement
+			policyChanged = solver.policyImprovement();
 
-		//3. Policy improovement to best (max) possible utility
-		if (maxUtility[maxUtil] > currSubUtility) {
-			//Update policy to policy with max utility
-			currentCell.setPolicy(maxUtil);
-			return true;
-		} else {
-			return false;
-		}
+			iteration++;
+			if (logger != null)
+				logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
+			//Adaptive evaluation: a policy can look stable after a rough evaluation, so the Bellman residual
+			//must also be within epsilon
+		} while (policyChanged || (evaluationMode == EvaluationMode.ADAPTIVE
+				&& solver.getResidualSpan() > compiledGrid.getParameters().getEpsilon()));
+		return iteration;
 	}
 }
@@ -0,0 +1,80 @@
+package main;
+
+import controller.GridEnvironment;
+import entities.Parameters;
+import solver.CompiledGrid;
+import solver.EvaluationMode;
+import solver.FlatPolicyIteration;
+import solver.FlatValueIteration;
+import solver.RolloutSimulator;
+
+/**
+ * Solves a grid, then checks the policy empirically: simulates episodes that follow the policy from the
+ * given start cells and compares the mean discounted return with the computed utility.
+ */
+public class RolloutEvaluation {
+
+	/**
+	 * @param args grid file, [ValueIteration or PolicyIteration, default ValueIteration]
+	 *             [episodes per start cell, default 1000000] [start cells "col,row;col,row", default every state]
+	 *             [threads, default number of processors] [seed, default 0]
+	 */
+	public static void main(String[] args) {
+		String fileName = args.length > 0 ? args[0] : "preset-1.txt";
+		String algorithm = args.length > 1 ? args[1] : "ValueIteration";
+		long episodes = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+		String startCells = args.length > 3 ? args[3] : "";
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+
+		//1. Solve the grid
+		GridEnvironment grid = new GridEnvironment(fileName);
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+		Parameters parameters = compiledGrid.getParameters();
+		if (algorithm.equals("PolicyIteration")) {
+			FlatPolicyIteration solver = new FlatPolicyIteration(compiledGrid);
+			PolicyIteration.solve(compiledGrid, solver, EvaluationMode.FIXED_K, parameters.getK(),
+					parameters.getThreshold(), null);
+		} else {
+			FlatValueIteration solver = new FlatValueIteration(compiledGrid);
+			ValueIteration.solve(compiledGrid, solver, parameters.getThreshold(), null);
+		}
+
+		//2. Start states
+		int[] starts;
+		if (startCells.isEmpty()) {
+			starts = new int[compiledGrid.getNumOfStates()];
+			for (int s = 0; s < starts.length; s++)
+				starts[s] = s;
+		} else {
+			String[] cells = startCells.split(";");
+			starts = new int[cells.length];
+			for (int i = 0; i < cells.length; i++) {
+				String[] coordinate = cells[i].split(",");
+				starts[i] = compiledGrid.index(Integer.parseInt(coordinate[0].trim()),
+						Integer.parseInt(coordinate[1].trim()));
+			}
+		}
+
+		//3. Simulate from every start state
+		RolloutSimulator simulator = new RolloutSimulator(compiledGrid);
+		System.out.printf("%s policy, %d episodes per start cell, horizon %d, %d threads\n", algorithm, episodes,
+				simulator.getHorizon(), threads);
+		System.out.println("cell\t\tutility\t\tmean return\t95% CI\t\tgoal rate\tsteps to goal (mean / p50 / p90 / p99)");
+
+		long steps = 0;
+		long start = System.nanoTime();
+		for (int s : starts) {
+			RolloutSimulator.Statistics statistics = simulator.simulate(s, episodes, threads, seed);
+			steps += statistics.getEpisodes() * simulator.getHorizon();
+			System.out.printf("(%d, %d)\t\t%.4f\t\t%.4f\t\t+-%.4f\t\t%.4f\t\t%.1f / %d / %d / %d\n",
+					compiledGrid.getCol(s), compiledGrid.getRow(s), compiledGrid.getUtilities()[s],
+					statistics.getMean(), statistics.getConfidenceInterval(), statistics.getGoalRate(),
+					statistics.getMeanStepsToGoal(), statistics.getStepsToGoal(0.5), statistics.getStepsToGoal(0.9),
+					statistics.getStepsToGoal(0.99));
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Total Simulated Steps : %d (%.1f s, %.0f million steps/s)\n", steps, seconds,
+				steps / seconds / 1e6);
+	}
+}
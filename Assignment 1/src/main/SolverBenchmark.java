@@ -0,0 +1,187 @@
+package main;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import controller.GridEnvironment;
+import entities.Parameters;
+import solver.CompiledGrid;
+import solver.EvaluationMode;
+import solver.FlatPolicyIteration;
+import solver.FlatValueIteration;
+import solver.SweepSolver;
+import solver.SweepStrategy;
+
+/**
+ * Headless benchmark of value iteration and policy iteration.
+ * Every grid in presetGridWorlds is run as is and tiled to 10x, 100x and 1000x its area.
+ * Each run is warmed up first, then the median of the measured runs is reported as CSV on stdout:
+ * time to converge, Bellman backups per second and bytes allocated by all threads, including the worker
+ * threads of parallel sweep strategies.
+ * Value iteration is also run with action elimination (not with VECTOR sweeps, which do not support it),
+ * the last column is the number of eliminated directions.
+ */
+public class SolverBenchmark {
+
+	//Area scale of the synthetic grids and the tiles (columns x rows) that give that area
+	private static final int[] SCALES = { 1, 10, 100, 1000 };
+	private static final int[][] TILES = { { 1, 1 }, { 5, 2 }, { 10, 10 }, { 40, 25 } };
+
+	//K values of policy iteration
+	private static final int[] DEFAULT_K = { 1, 5, 10, 40, 100 };
+	//K of value iteration, with and without action elimination
+	private static final int VALUE_ITERATION = -1;
+	private static final int VALUE_ITERATION_ELIMINATING = -2;
+
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+	/**
+	 * @param args [warm-up runs, default 2] [measured runs, default 5] [largest scale, default 1000]
+	 *             [K values, comma separated] [sweep strategy, default GAUSS_SEIDEL] [threads]
+	 */
+	public static void main(String[] args) {
+		int warmups = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int maxScale = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int[] kValues = args.length > 3 ? Arrays.stream(args[3].split(",")).mapToInt(Integer::parseInt).toArray()
+				: DEFAULT_K;
+		SweepStrategy strategy = args.length > 4 ? SweepStrategy.valueOf(args[4]) : SweepStrategy.GAUSS_SEIDEL;
+		int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+		String[] fileNames = new File("presetGridWorlds").list();
+		if (fileNames == null)
+			throw new IllegalArgumentException("No presetGridWorlds directory in the working directory.");
+		Arrays.sort(fileNames);
+
+		System.out.println("grid,scale,states,algorithm,K,iterations,backups,ms,backups/s,bytes allocated (all threads),MB/s allocated,eliminated actions");
+		for (String fileName : fileNames) {
+			GridEnvironment preset = new GridEnvironment(fileName);
+			for (int i = 0; i < SCALES.length && SCALES[i] <= maxScale; i++) {
+				GridEnvironment grid = new GridEnvironment(preset, TILES[i][0], TILES[i][1]);
+				String name = fileName + "," + SCALES[i] + "," + grid.getNumOfCol() * grid.getNumOfRow();
+
+				//Build the state index once, outside of the measured runs
+				grid.getStateIndex();
+
+				report(name + ",ValueIteration,", measure(grid, VALUE_ITERATION, strategy, threads, warmups, runs));
+				if (strategy != SweepStrategy.VECTOR)
+					report(name + ",ValueIteration (action elimination),",
+							measure(grid, VALUE_ITERATION_ELIMINATING, strategy, threads, warmups, runs));
+				for (int k : kValues)
+					report(name + ",PolicyIteration," + k, measure(grid, k, strategy, threads, warmups, runs));
+			}
+		}
+	}
+
+	/**
+	 * Solve the grid warmups + runs times
+	 * @param grid
+	 * @param k number of policy evaluation sweeps, VALUE_ITERATION or VALUE_ITERATION_ELIMINATING
+	 * @param strategy
+	 * @param threads
+	 * @param warmups
+	 * @param runs
+	 * @return Median of the measured runs: {iterations, backups, nanoseconds, bytes allocated, eliminated actions}
+	 */
+	private static long[] measure(GridEnvironment grid, int k, SweepStrategy strategy, int threads, int warmups,
+			int runs) {
+		long[][] results = new long[runs][];
+		for (int i = 0; i < warmups + runs; i++) {
+			long[] result = run(grid, k, strategy, threads);
+			if (i >= warmups)
+				results[i - warmups] = result;
+		}
+		Arrays.sort(results, (a, b) -> Long.compare(a[2], b[2]));
+		return results[runs / 2];
+	}
+
+	/**
+	 * Solve the grid once from its initial utilities
+	 * @return {iterations, backups, nanoseconds, bytes allocated, eliminated actions}
+	 */
+	private static long[] run(GridEnvironment grid, int k, SweepStrategy strategy, int threads) {
+		double threshold = Parameters.DEFAULT.getThreshold();
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+
+		long[][] allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		SweepSolver solver;
+		int iterations;
+		long eliminated = 0;
+		if (k < 0) {
+			FlatValueIteration valueIteration = new FlatValueIteration(compiledGrid, strategy, threads);
+			if (k == VALUE_ITERATION_ELIMINATING)
+				valueIteration.enableActionElimination();
+			iterations = ValueIteration.solve(compiledGrid, valueIteration, threshold, null);
+			eliminated = valueIteration.getEliminatedActions();
+			solver = valueIteration;
+		} else {
+			FlatPolicyIteration policyIteration = new FlatPolicyIteration(compiledGrid, strategy, threads);
+			iterations = PolicyIteration.solve(compiledGrid, policyIteration, EvaluationMode.FIXED_K, k, threshold, null);
+			solver = policyIteration;
+		}
+		long time = System.nanoTime() - start;
+		//Before shutdown, while the worker threads are alive
+		long allocated = allocatedSince(allocatedBefore);
+		solver.shutdown();
+
+		return new long[] { iterations, solver.getBackups(), time, allocated, eliminated };
+	}
+
+	private static void report(String name, long[] result) {
+		double seconds = result[2] / 1e9;
+		System.out.printf("%s,%d,%d,%.3f,%.0f,%d,%.2f,%d\n", name, result[0], result[1], result[2] / 1e6,
+				result[1] / seconds, result[3], result[3] < 0 ? -1 : result[3] / 1e6 / seconds, result[4]);
+	}
+
+	/**
+	 * Bytes allocated so far by every live thread
+	 * @return {thread ids, bytes allocated by each}, null if the JVM does not measure allocation
+	 */
+	private static long[][] allocatedBytes() {
+		if (THREAD_BEAN == null)
+			return null;
+		long[] ids = THREAD_BEAN.getAllThreadIds();
+		return new long[][] { ids, THREAD_BEAN.getThreadAllocatedBytes(ids) };
+	}
+
+	/**
+	 * Bytes allocated by all threads since the snapshot: threads started since then (worker threads of
+	 * parallel sweep strategies) count in full. Threads that ended in between are not counted.
+	 * @param before snapshot of allocatedBytes()
+	 * @return -1 if the JVM does not measure allocation
+	 */
+	private static long allocatedSince(long[][] before) {
+		long[][] after = allocatedBytes();
+		if (before == null || after == null)
+			return -1;
+
+		long allocated = 0;
+		for (int i = 0; i < after[0].length; i++) {
+			if (after[1][i] < 0)
+				continue;
+			allocated += after[1][i];
+			for (int j = 0; j < before[0].length; j++) {
+				if (before[0][j] == after[0][i] && before[1][j] >= 0) {
+					allocated -= before[1][j];
+					break;
+				}
+			}
+		}
+		return allocated;
+	}
+
+	private static com.sun.management.ThreadMXBean threadBean() {
+		try {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (bean.isThreadAllocatedMemorySupported()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+				return bean;
+			}
+		} catch (ClassCastException | UnsupportedOperationException e) {
+			System.out.println(e);
+		}
+		return null;
+	}
+}
@@ -1,11 +1,16 @@
 package main;
 
-import entities.State;
-import entities.StateType;
 import fileManager.LogFileController;
+import fileManager.LogFormat;
+import fileManager.LogPolicy;
+import solver.CompiledGrid;
+import solver.FlatValueIteration;
+import solver.MultigridSolver;
+import solver.PrioritizedSweeping;
+import solver.SweepStrategy;
+import solver.TopologicalValueIteration;
 import controller.GridEnvironment;
-import entities.Constants;
-import entities.StateCoordinate;
+import entities.Parameters;
 
 public class ValueIteration {
 
@@ -15,100 +20,195 @@ public class ValueIteration {
 	// EPSILON = C * R_MAX;
 
 	public static void main(String[] args) {
-		GridEnvironment grid = new GridEnvironment("preset-1.txt");
+		//Grid file from presetGridWorlds, size is taken from the file
+		String fileName = args.length > 0 ? args[0] : "preset-1.txt";
+		//Sweep strategy (or PRIORITIZED for prioritized sweeping, MULTIGRID for coarse-to-fine value iteration,
+		//TOPOLOGICAL for strongly connected component order) and number of worker threads for parallel strategies
+		String mode = args.length > 1 ? args[1] : SweepStrategy.GAUSS_SEIDEL.name();
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		//Eliminate provably suboptimal directions during the sweeps (sweep strategies other than VECTOR only)
+		boolean eliminateActions = args.length > 3 && Boolean.parseBoolean(args[3]);
+		//Log file format and which iterations are logged (EVERY_ITERATION, FINAL_ONLY, EVERY_NTH:n, DELTA:threshold)
+		LogFormat logFormat = args.length > 4 ? LogFormat.valueOf(args[4]) : LogFormat.CSV;
+		LogPolicy logPolicy = args.length > 5 ? LogPolicy.parse(args[5]) : LogPolicy.everyIteration();
+
+		GridEnvironment grid = new GridEnvironment(fileName);
 		grid.printGridWorld();
-		runValueIteration(grid);
+		LogFileController logger = new LogFileController("ValueIteration", grid, logFormat, logPolicy);
+		switch (mode) {
+		case "PRIORITIZED":
+			runPrioritizedSweeping(grid, logger);
+			break;
+		case "MULTIGRID":
+			runMultigrid(grid, logger);
+			break;
+		case "TOPOLOGICAL":
+			runTopological(grid, logger);
+			break;
+		default:
+			runValueIteration(grid, SweepStrategy.valueOf(mode), threads, eliminateActions, logger);
+		}
 	}
 
 	/**
 	 * Function to run value Iteration on Grid
+	 * The grid is compiled once into flat arrays and swept without allocation
 	 * @param grid
+	 * @param strategy
+	 * @param threads
+	 * @param eliminateActions
+	 * @param logger
 	 */
-	private static void runValueIteration(GridEnvironment grid) {
-		double threshold = Constants.EPSILON * ((1 - Constants.DISCOUNT_FACTOR) / Constants.DISCOUNT_FACTOR);
-		LogFileController logger = new LogFileController("ValueIteration", grid);
+	private static void runValueIteration(GridEnvironment grid, SweepStrategy strategy, int threads,
+			boolean eliminateActions, LogFileController logger) {
+		double threshold = Parameters.DEFAULT.getThreshold();
 		
 		//Display grid with State Type, Reward, and Initial Policy
 		System.out.println("Grid World Original :");
 		grid.print();
-		logger.add(grid);
 
-		double maxChangeInUtility = 0;
-		int iteration = 1;
-		do {
-			// Calculate Maximum change in utility 
-			maxChangeInUtility = 0;
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+		FlatValueIteration solver = new FlatValueIteration(compiledGrid, strategy, threads);
+		if (eliminateActions)
+			solver.enableActionElimination();
+		int iterations = solve(compiledGrid, solver, threshold, logger);
+		solver.shutdown();
+
+		//Copy utilities & policies back to the grid for display
+		compiledGrid.writeBack(grid);
 
-			//Run loop for 1 iteration
-			for (int c = 0; c < Constants.NUM_COL; c++) {
-				for (int r = 0; r < Constants.NUM_ROW; r++) {
-					State currentCell = grid.getCell(new StateCoordinate(c, r));
+		System.out.printf("Total Iterations to Converge : %d\n", iterations);
+		// System.out.printf("Change in utility from previous iteration: %5.3f\n", maxChangeInUtility);
+		if (eliminateActions)
+			System.out.printf("Eliminated Actions : %d of %d\n", solver.getEliminatedActions(),
+					compiledGrid.getNumOfStates() * 4L);
+		printResults(grid, threshold);
+		logger.finalConvertToCSV();
+	}
 
-					//If current cell is a wall then skip
-					if (currentCell.getStateType() == StateType.WALL)
-						continue;
+	/**
+	 * Sweep until the maximum change in utility is within the threshold, without printing
+	 * @param compiledGrid
+	 * @param solver
+	 * @param threshold
+	 * @param logger logs the initial utilities and every sweep, null to run without logging
+	 * @return Number of sweeps to converge
+	 */
+	static int solve(CompiledGrid compiledGrid, FlatValueIteration solver, double threshold, LogFileController logger) {
+		if (logger != null)
+			logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
 
-					// Find change in utility 
-					double changeInUtility = calculateUtilityChange(currentCell, grid);
-					if (changeInUtility > maxChangeInUtility)
-						maxChangeInUtility = changeInUtility;
-				}
-			}
+		double maxChangeInUtility = 0;
+		int iteration = 0;
+		do {
+			// Run loop for 1 iteration and find maximum change in utility
+			maxChangeInUtility = solver.sweep();
 
 			iteration++;
-			// maze.print();
-			logger.add(grid);
+			if (logger != null)
+				logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
 		} while (maxChangeInUtility > threshold);
+		return iteration;
+	}
 
-		System.out.printf("Total Iterations to Converge : %d\n", iteration-1);
-		// System.out.printf("Change in utility from previous iteration: %5.3f\n", maxChangeInUtility);
-		grid.printExperimentParamters(true,threshold);
-		grid.printPolicy();
-		grid.printStateUtilities();
-		grid.printUtilityGrid();
+	/**
+	 * Function to run prioritized sweeping value iteration on Grid
+	 * Only the initial and the converged utilities are logged
+	 * @param grid
+	 * @param logger
+	 */
+	private static void runPrioritizedSweeping(GridEnvironment grid, LogFileController logger) {
+		double threshold = Parameters.DEFAULT.getThreshold();
+
+		//Display grid with State Type, Reward, and Initial Policy
+		System.out.println("Grid World Original :");
+		grid.print();
+
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+		PrioritizedSweeping solver = new PrioritizedSweeping(compiledGrid);
+		logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
+
+		long updates = solver.solve(threshold);
+		logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
+
+		//Copy utilities & policies back to the grid for display
+		compiledGrid.writeBack(grid);
+
+		System.out.printf("Total State Updates : %d\n", updates);
+		System.out.printf("Total Bellman Backups : %d\n", solver.getBackups());
+		System.out.printf("Total Predecessor Updates : %d\n", solver.getPredecessorUpdates());
+		printResults(grid, threshold);
 		logger.finalConvertToCSV();
 	}
 
 	/**
-	 * Calculate the utility of the given State.
-	 * @param currentCell
+	 * Function to run coarse-to-fine value iteration on Grid
+	 * Only the initial and the converged utilities are logged
 	 * @param grid
-	 * @return The difference previous Utility and new update Utility
+	 * @param logger
 	 */
-	private static double calculateUtilityChange(State currentCell, GridEnvironment grid) {
-		double[] subUtilities = new double[StateCoordinate.TOTAL_DIRECTIONS];
-
-		//1. Find all possible utilities (i.e. 4 possible directions)
-		for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++) {
-			//1.1 Add the expected utilities of neighbouring cells (i.e. UP, LEFT, RIGHT) 
-			State[] neighbours = grid.getNeighboursOfCell(currentCell, dir);
-			double up = Constants.PROBABILITY_UP * neighbours[0].getUtility();
-			double left = Constants.PROBABILITY_LEFT * neighbours[1].getUtility();
-			double right = Constants.PROBABILITY_RIGHT * neighbours[2].getUtility();
-
-			//Sub state utility 
-			subUtilities[dir] = up + left + right;
-		}
+	private static void runMultigrid(GridEnvironment grid, LogFileController logger) {
+		double threshold = Parameters.DEFAULT.getThreshold();
 
-		//2. Find the maximum possible utility
-		int maxUtilityIndex = 0;
-		for (int u = 1; u < subUtilities.length; u++) {
-			if (subUtilities[u] > subUtilities[maxUtilityIndex])
-				maxUtilityIndex = u;
-		}
+		//Display grid with State Type, Reward, and Initial Policy
+		System.out.println("Grid World Original :");
+		grid.print();
+
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+		MultigridSolver solver = new MultigridSolver(compiledGrid);
+		logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
+
+		int iterations = solver.solve(threshold);
+		logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
+
+		//Copy utilities & policies back to the grid for display
+		compiledGrid.writeBack(grid);
+
+		for (int l = solver.getNumOfLevels(); l > 0; l--)
+			System.out.printf("Level %d : %d states\n", l, solver.getNumOfStates(l - 1));
+		System.out.printf("Corrections : %d (%d rejected)\n", solver.getCorrections(), solver.getRejectedCorrections());
+		System.out.printf("Total Iterations to Converge : %d\n", iterations);
+		System.out.printf("Total Bellman Backups : %d\n", solver.getBackups());
+		printResults(grid, threshold);
+		logger.finalConvertToCSV();
+	}
+
+	/**
+	 * Function to run value iteration on Grid in strongly connected component order
+	 * Only the initial and the converged utilities are logged
+	 * @param grid
+	 * @param logger
+	 */
+	private static void runTopological(GridEnvironment grid, LogFileController logger) {
+		double threshold = Parameters.DEFAULT.getThreshold();
+
+		//Display grid with State Type, Reward, and Initial Policy
+		System.out.println("Grid World Original :");
+		grid.print();
+
+		CompiledGrid compiledGrid = new CompiledGrid(grid);
+		TopologicalValueIteration solver = new TopologicalValueIteration(compiledGrid);
+		logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
 
-		//3. Set utility & policy of current cell
-		float currentReward = currentCell.getStateType().getReward();
-		double prevUtility = currentCell.getUtility();
+		int passes = solver.solve(threshold);
+		logger.add(compiledGrid.getUtilities(), compiledGrid.getStateIndex());
 
-		//Apply Simplified Belmman equation 
-		//Utility of a state = currentStateReward + Max Possible Discounted Future Reward
-		double newUtility = currentReward + Constants.DISCOUNT_FACTOR * subUtilities[maxUtilityIndex];
-		currentCell.setUtility(newUtility);
-		currentCell.setPolicy(maxUtilityIndex);
+		//Copy utilities & policies back to the grid for display
+		compiledGrid.writeBack(grid);
 
-		//4. Return the difference of prevUtility & newUtility
-		// Converges when this new utility becomes very close to previous utility
-		return (Math.abs(prevUtility - newUtility));
+		System.out.printf("Total Passes : %d\n", passes);
+		System.out.printf("Plain Sweeps after Passes : %d\n", solver.getFallbackSweeps());
+		System.out.printf("Components of Last Pass : %d (largest %d states)\n", solver.getNumOfComponents(),
+				solver.getLargestComponent());
+		System.out.printf("Total Bellman Backups : %d\n", solver.getBackups());
+		printResults(grid, threshold);
+		logger.finalConvertToCSV();
+	}
+
+	private static void printResults(GridEnvironment grid, double threshold) {
+		grid.printExperimentParamters(true,Parameters.DEFAULT,threshold);
+		grid.printPolicy();
+		grid.printStateUtilities();
+		grid.printUtilityGrid();
 	}
 }
@@ -0,0 +1,19 @@
+package solver;
+
+/**
+ * Synchronous Bellman backup of a prefix of the states, as a data-parallel kernel.
+ */
+interface BellmanKernel {
+	/**
+	 * Back up states [0, getLimit()) from source into target and store their policies
+	 * @param source utilities of the previous sweep
+	 * @param target new utilities
+	 * @return Maximum change in utility over the backed up states
+	 */
+	double sweep(double[] source, double[] target);
+
+	/**
+	 * Number of states backed up by sweep(), the remaining states are left to the scalar backup
+	 */
+	int getLimit();
+}
@@ -0,0 +1,97 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Queue of state indices bucketed by priority / threshold: its power of two and the first
+ * SUB_BUCKET_BITS bits of its mantissa, i.e. 16 buckets per power of two.
+ * Push, move and poll are O(1): states are kept in intrusive doubly linked lists, and poll
+ * returns a state from the highest non-empty bucket, so order is exact up to a factor of 2^(1/16).
+ * Every state is in the queue at most once.
+ */
+class BucketQueue {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int NUM_BUCKETS = 64 << SUB_BUCKET_BITS;
+
+	private final double threshold;
+	private final int[] head;
+	private final int[] next, prev, bucketOf;
+	private int top = -1;
+	private int size;
+
+	/**
+	 * @param numStates states are indices in [0, numStates)
+	 * @param threshold smallest priority that is queued
+	 */
+	BucketQueue(int numStates, double threshold) {
+		this.threshold = threshold;
+		this.head = new int[NUM_BUCKETS];
+		this.next = new int[numStates];
+		this.prev = new int[numStates];
+		this.bucketOf = new int[numStates];
+		Arrays.fill(head, -1);
+		Arrays.fill(bucketOf, -1);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Insert the state, or move it to the bucket of its new priority
+	 * @param s
+	 * @param priority must be above the threshold
+	 */
+	void update(int s, double priority) {
+		//Exponent and leading mantissa bits of the double, relative to an exponent of 0
+		long bits = Double.doubleToRawLongBits(priority / threshold) >>> (52 - SUB_BUCKET_BITS);
+		long bucket0 = bits - ((long) Double.MAX_EXPONENT << SUB_BUCKET_BITS);
+		int bucket = (int) Math.max(0, Math.min(NUM_BUCKETS - 1, bucket0));
+		if (bucketOf[s] == bucket)
+			return;
+		if (bucketOf[s] >= 0)
+			unlink(s);
+
+		next[s] = head[bucket];
+		prev[s] = -1;
+		if (head[bucket] >= 0)
+			prev[head[bucket]] = s;
+		head[bucket] = s;
+		bucketOf[s] = bucket;
+		size++;
+		if (bucket > top)
+			top = bucket;
+	}
+
+	/**
+	 * Remove the state if it is queued
+	 * @param s
+	 */
+	void remove(int s) {
+		if (bucketOf[s] >= 0)
+			unlink(s);
+	}
+
+	/**
+	 * Remove and return a state of the highest non-empty bucket
+	 */
+	int poll() {
+		while (head[top] < 0)
+			top--;
+		int s = head[top];
+		unlink(s);
+		return s;
+	}
+
+	private void unlink(int s) {
+		int bucket = bucketOf[s];
+		if (prev[s] >= 0)
+			next[prev[s]] = next[s];
+		else
+			head[bucket] = next[s];
+		if (next[s] >= 0)
+			prev[next[s]] = prev[s];
+		bucketOf[s] = -1;
+		size--;
+	}
+}
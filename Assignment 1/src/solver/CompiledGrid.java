@@ -0,0 +1,151 @@
+package solver;
+
+import controller.GridEnvironment;
+import controller.PackedGrid;
+import controller.StateIndex;
+import entities.Parameters;
+import entities.State;
+import entities.StateCoordinate;
+import entities.StateType;
+
+public class CompiledGrid {
+	// State Types stored as StateType ordinal
+	public static final byte WHITE = (byte) StateType.WHITE.ordinal();
+	public static final byte BROWN = (byte) StateType.BROWN.ordinal();
+	public static final byte GREEN = (byte) StateType.GREEN.ordinal();
+	public static final byte WALL = (byte) StateType.WALL.ordinal();
+
+	final int numCol, numRow;
+	// Discount factor and rewards of this run
+	final Parameters parameters;
+	final float discount;
+	// Number of non-wall states, walls are not part of the compiled grid
+	final int numStates;
+
+	// Dense index over the non-wall states, shared with the grid
+	final StateIndex index;
+
+	// Flat arrays indexed by state index (see StateIndex)
+	final float[] rewards;
+	final byte[] policies;
+
+	// Swapped with a second buffer by synchronous sweeps, read through getUtilities()
+	double[] utilities;
+
+	// Successor index [(s * 4 + direction) * 3 + outcome], shared with the state index
+	final int[] successors;
+
+	/**
+	 * Compile the grid environment once into flat primitive arrays over its non-wall states.
+	 * Utilities and policies start from the current values of the states.
+	 * @param grid
+	 */
+	public CompiledGrid(GridEnvironment grid) {
+		this(grid.getStateIndex(), Parameters.DEFAULT);
+
+		for (int s = 0; s < numStates; s++) {
+			State cell = grid.getCell(new StateCoordinate(index.getCol(s), index.getRow(s)));
+			utilities[s] = cell.getUtility();
+			policies[s] = (byte) cell.getPolicy().getDirection();
+		}
+	}
+
+	/**
+	 * Compile a packed grid directly, without State objects.
+	 * Utilities start from the rewards and policies from UP, as for a grid imported from a file.
+	 * @param packedGrid
+	 */
+	public CompiledGrid(PackedGrid packedGrid) {
+		this(new StateIndex(packedGrid), Parameters.DEFAULT);
+	}
+
+	/**
+	 * Compile a state index with the discount factor and rewards of one run.
+	 * Utilities start from the rewards of the run and policies from UP.
+	 * @param index
+	 * @param parameters
+	 */
+	public CompiledGrid(StateIndex index, Parameters parameters) {
+		this.index = index;
+		this.parameters = parameters;
+		this.discount = parameters.getDiscountFactor();
+		this.numCol = index.getNumOfCol();
+		this.numRow = index.getNumOfRow();
+		this.numStates = index.getNumOfStates();
+		this.rewards = new float[numStates];
+		this.utilities = new double[numStates];
+		this.policies = new byte[numStates];
+		this.successors = index.getSuccessors();
+
+		for (int s = 0; s < numStates; s++) {
+			rewards[s] = parameters.getReward(index.getStateType(s));
+			utilities[s] = rewards[s];
+		}
+	}
+
+	/**
+	 * State index of a coordinate
+	 * @return -1 for walls
+	 */
+	public int index(int col, int row) {
+		return index.getState(col, row);
+	}
+
+	public int getCol(int s) {
+		return index.getCol(s);
+	}
+
+	public int getRow(int s) {
+		return index.getRow(s);
+	}
+
+	/**
+	 * Number of non-wall states
+	 */
+	public int getNumOfStates() {
+		return numStates;
+	}
+
+	public Parameters getParameters() {
+		return parameters;
+	}
+
+	public StateIndex getStateIndex() {
+		return index;
+	}
+
+	/**
+	 * Utilities of all non-wall states in state index order (see StateIndex).
+	 */
+	public double[] getUtilities() {
+		return utilities;
+	}
+
+	public int getPolicy(int s) {
+		return policies[s];
+	}
+
+	/**
+	 * Refresh the reward of a state after its cell was changed to another non-wall type
+	 * The utility is kept, so re-converging starts from the previous solution.
+	 * Walls added or removed change the state index, the grid has to be compiled again
+	 * @param grid
+	 * @param s
+	 */
+	public void updateState(GridEnvironment grid, int s) {
+		State cell = grid.getCell(new StateCoordinate(getCol(s), getRow(s)));
+		rewards[s] = parameters.getReward(cell.getStateType());
+	}
+
+	/**
+	 * Copy the solved utilities and policies back into the grid states for display.
+	 * @param grid
+	 */
+	public void writeBack(GridEnvironment grid) {
+		for (int s = 0; s < numStates; s++) {
+			State cell = grid.getCell(new StateCoordinate(getCol(s), getRow(s)));
+			cell.setUtility(utilities[s]);
+			cell.setPolicy(policies[s]);
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package solver;
+
+public enum EvaluationMode {
+	// Constants.K sweeps of the simplified Bellman update per policy iteration
+	FIXED_K,
+	// Solve the linear system of the policy to a tolerance with a sparse SOR solver
+	EXACT,
+	// Modified policy iteration: sweeps until the span of the change in utility is a fraction of the Bellman
+	// residual of the last improvement, within bounds given per run
+	ADAPTIVE;
+}
@@ -0,0 +1,177 @@
+package solver;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+public class FlatPolicyIteration extends SweepSolver {
+	private SparsePolicyEvaluator evaluator;
+	// Utilities before the last sweep of adaptive policy evaluation
+	private double[] previousUtilities;
+	// Span (max - min) of the Bellman residual of the last policy improvement, infinite before the first one
+	private double residualSpan = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Single threaded, in-place (Gauss-Seidel) policy evaluation
+	 * @param grid
+	 */
+	public FlatPolicyIteration(CompiledGrid grid) {
+		this(grid, SweepStrategy.GAUSS_SEIDEL, 1);
+	}
+
+	/**
+	 * @param grid
+	 * @param strategy sweep strategy of policy evaluation
+	 * @param threads number of worker threads for parallel strategies
+	 */
+	public FlatPolicyIteration(CompiledGrid grid, SweepStrategy strategy, int threads) {
+		super(grid, strategy, threads);
+	}
+
+	/**
+	 * 1. Policy Evaluation
+	 * Calculates utilities for the current Policy with k sweeps of the simplified Bellman update.
+	 * @param k number of times Bellman update is executed to get next utility estimate
+	 */
+	public void policyEvaluation(int k) {
+		for (int i = 0; i < k; i++) {
+			runSweep();
+		}
+	}
+
+	/**
+	 * 1. Policy Evaluation (exact)
+	 * Solves U = R + discount * P U of the current Policy with a sparse SOR solver.
+	 * @param tolerance largest change in utility of the final solver sweep
+	 * @return Number of solver sweeps
+	 */
+	public int exactPolicyEvaluation(double tolerance) {
+		if (evaluator == null)
+			evaluator = new SparsePolicyEvaluator(grid, Constants.SOR_RELAXATION);
+		int sweeps = evaluator.evaluate(tolerance);
+		backups += (long) sweeps * grid.numStates;
+		return sweeps;
+	}
+
+	/**
+	 * 1. Policy Evaluation (adaptive)
+	 * Modified policy iteration: sweeps until the span (max - min) of the change in utility of a sweep
+	 * is at most a fraction (Constants.ADAPTIVE_TOLERANCE_FRACTION) of the span of the Bellman residual of the
+	 * last policy improvement, within [minK, maxK] sweeps and never below the tolerance. Early policies, far
+	 * from optimal, are only evaluated roughly, and the evaluation tightens as the policy settles. Before the
+	 * first improvement the span of the first sweep is used instead. Policy improvement does not change when
+	 * all utilities shift by the same amount, so spans are used instead of maximum changes.
+	 * @param tolerance smallest span of the change in utility a round stops at
+	 * @param minK minimum number of sweeps, at least 1
+	 * @param maxK maximum number of sweeps, at least minK
+	 * @return Number of sweeps chosen for this round
+	 */
+	public int adaptivePolicyEvaluation(double tolerance, int minK, int maxK) {
+		if (minK < 1 || maxK < minK)
+			throw new IllegalArgumentException("Adaptive K bounds must satisfy 1 <= minK <= maxK.");
+		if (previousUtilities == null)
+			previousUtilities = new double[grid.numStates];
+
+		double roundTolerance = Math.max(tolerance, Constants.ADAPTIVE_TOLERANCE_FRACTION * residualSpan);
+		int k = 0;
+		double span;
+		do {
+			System.arraycopy(grid.utilities, 0, previousUtilities, 0, grid.numStates);
+			runSweep();
+			k++;
+
+			//Span of the change in utility of this sweep
+			double[] u = grid.utilities;
+			double maxChange = Double.NEGATIVE_INFINITY, minChange = Double.POSITIVE_INFINITY;
+			for (int s = 0; s < grid.numStates; s++) {
+				double change = u[s] - previousUtilities[s];
+				if (change > maxChange)
+					maxChange = change;
+				if (change < minChange)
+					minChange = change;
+			}
+			span = maxChange - minChange;
+			if (k == 1 && Double.isInfinite(residualSpan))
+				roundTolerance = Math.max(tolerance, Constants.ADAPTIVE_TOLERANCE_FRACTION * span);
+		} while (k < maxK && (k < minK || span > roundTolerance));
+
+		return k;
+	}
+
+	/**
+	 * Span (max - min) of the Bellman residual of the last policy improvement. A policy can look stable after
+	 * a rough adaptive evaluation, so adaptive policy iteration also waits for this span to be small.
+	 */
+	public double getResidualSpan() {
+		return residualSpan;
+	}
+
+	/**
+	 * Simplified Bellman update of the given state for its current Policy
+	 */
+	@Override
+	double calculateUtilityChange(int s, double[] source, double[] target) {
+		double prevUtility = source[s];
+
+		//Utility of a state = currentStateReward + Discounted Future Reward of current Policy
+		double newUtility = grid.rewards[s] + grid.discount * subUtility(s, grid.policies[s], source);
+		target[s] = newUtility;
+
+		return (Math.abs(prevUtility - newUtility));
+	}
+
+	/**
+	 * 2. Policy Improvement
+	 * Update the policy of every state to the direction with the maximum sub-utility,
+	 * and keep the span of the Bellman residual for adaptive policy evaluation.
+	 * @return True if change in policy (current vs updated)
+	 */
+	public boolean policyImprovement() {
+		backups += grid.numStates;
+		boolean policyChanged = false;
+		double maxResidual = Double.NEGATIVE_INFINITY, minResidual = Double.POSITIVE_INFINITY;
+		for (int s = 0; s < grid.numStates; s++) {
+			//1. Find the maximum possible sub-utility
+			double maxSubUtility = 0;
+			int maxUtil = 0;
+			for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++) {
+				double subUtility = subUtility(s, dir);
+				if (dir == 0 || subUtility > maxSubUtility) {
+					maxSubUtility = subUtility;
+					maxUtil = dir;
+				}
+			}
+
+			//2. Policy improvement to best (max) possible utility
+			if (maxSubUtility > subUtility(s, grid.policies[s])) {
+				grid.policies[s] = (byte) maxUtil;
+				policyChanged = true;
+			}
+
+			//3. Bellman residual of the state
+			double residual = grid.rewards[s] + grid.discount * maxSubUtility - grid.utilities[s];
+			maxResidual = Math.max(maxResidual, residual);
+			minResidual = Math.min(minResidual, residual);
+		}
+		residualSpan = maxResidual - minResidual;
+		return policyChanged;
+	}
+
+	/**
+	 * Expected utility of the neighbouring states (UP, LEFT, RIGHT) for a direction
+	 * @param s
+	 * @param direction
+	 */
+	double subUtility(int s, int direction) {
+		return subUtility(s, direction, grid.utilities);
+	}
+
+	private double subUtility(int s, int direction, double[] u) {
+		int next = (s * StateCoordinate.TOTAL_DIRECTIONS + direction) * StateIndex.TOTAL_OUTCOMES;
+
+		double up = Constants.PROBABILITY_UP * u[grid.successors[next]];
+		double left = Constants.PROBABILITY_LEFT * u[grid.successors[next + 1]];
+		double right = Constants.PROBABILITY_RIGHT * u[grid.successors[next + 2]];
+		return up + left + right;
+	}
+}
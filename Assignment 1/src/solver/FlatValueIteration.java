@@ -0,0 +1,202 @@
+package solver;
+
+import java.util.Arrays;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+public class FlatValueIteration extends SweepSolver {
+	private static final int ALL_ACTIONS = (1 << StateCoordinate.TOTAL_DIRECTIONS) - 1;
+
+	// Action elimination only: bit d of actions[s] is set while direction d may still be optimal for s
+	private byte[] actions;
+	// Bound on |utility - optimal utility| of every state
+	private double errorBound;
+
+	/**
+	 * Single threaded, in-place (Gauss-Seidel) value iteration
+	 * @param grid
+	 */
+	public FlatValueIteration(CompiledGrid grid) {
+		this(grid, SweepStrategy.GAUSS_SEIDEL, 1);
+	}
+
+	/**
+	 * @param grid
+	 * @param strategy
+	 * @param threads number of worker threads for parallel strategies
+	 */
+	public FlatValueIteration(CompiledGrid grid, SweepStrategy strategy, int threads) {
+		super(grid, strategy, threads);
+	}
+
+	/**
+	 * Run one value iteration sweep over all states.
+	 * @return Maximum change in utility in this sweep
+	 */
+	public double sweep() {
+		double maxChangeInUtility = runSweep();
+		//Contraction: the utilities are within discount * maxChange / (1 - discount) of the optimal utilities
+		if (actions != null)
+			errorBound = Math.min(errorBound, grid.discount * maxChangeInUtility / (1 - grid.discount));
+		return maxChangeInUtility;
+	}
+
+	/**
+	 * Eliminate provably suboptimal directions from now on, so backups only evaluate the surviving ones.
+	 * Every utility stays within errorBound of the optimal utility, so the expected utility of a direction
+	 * is known within errorBound too. A direction whose upper bound is below the lower bound of the best
+	 * direction is not optimal and is never evaluated again. Until the first sweep the bound is
+	 * max |utility| + Rmax / (1 - discount), Rmax / (1 - discount) being UTILITY_UPPER_BOUND for the default rewards.
+	 * Converges to the same utilities, ties between directions may be resolved differently.
+	 * Not supported by VECTOR sweeps: the SIMD kernel always evaluates all 4 directions.
+	 * @throws IllegalStateException if the sweep strategy is VECTOR
+	 */
+	public void enableActionElimination() {
+		if (getStrategy() == SweepStrategy.VECTOR)
+			throw new IllegalStateException("Action elimination is not supported by VECTOR sweeps.");
+
+		double maxReward = 0, maxUtility = 0;
+		for (int s = 0; s < grid.numStates; s++) {
+			maxReward = Math.max(maxReward, Math.abs(grid.rewards[s]));
+			maxUtility = Math.max(maxUtility, Math.abs(grid.utilities[s]));
+		}
+		this.errorBound = maxUtility + maxReward / (1 - grid.discount);
+		this.actions = new byte[grid.numStates];
+		Arrays.fill(actions, (byte) ALL_ACTIONS);
+	}
+
+	/**
+	 * Number of directions eliminated over all states, 0 without action elimination
+	 */
+	public long getEliminatedActions() {
+		if (actions == null)
+			return 0;
+		long eliminated = 0;
+		for (int s = 0; s < grid.numStates; s++)
+			eliminated += StateCoordinate.TOTAL_DIRECTIONS - Integer.bitCount(actions[s]);
+		return eliminated;
+	}
+
+	/**
+	 * Load the Vector API kernel (optional source root src-vector) by reflection, so this class compiles and runs
+	 * without the jdk.incubator.vector module
+	 */
+	@Override
+	BellmanKernel createKernel() {
+		try {
+			return (BellmanKernel) Class.forName("solver.VectorBellmanKernel").getDeclaredConstructor(CompiledGrid.class)
+					.newInstance(grid);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			System.out.println("Vector API not available, using scalar backups: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Calculate the utility of the given state from source and store it with its policy.
+	 * @param s
+	 * @param source utilities read for the neighbouring states
+	 * @param target utilities the new utility is written to
+	 * @return The difference previous Utility and new update Utility
+	 */
+	@Override
+	double calculateUtilityChange(int s, double[] source, double[] target) {
+		if (actions != null)
+			return calculateUtilityChangeOfActions(s, source, target);
+		int[] successors = grid.successors;
+
+		//1. Find the maximum possible sub utility (i.e. 4 possible directions)
+		double maxSubUtility = 0;
+		int maxUtilityIndex = 0;
+		int next = s * StateCoordinate.TOTAL_DIRECTIONS * StateIndex.TOTAL_OUTCOMES;
+		for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++, next += StateIndex.TOTAL_OUTCOMES) {
+			double up = Constants.PROBABILITY_UP * source[successors[next]];
+			double left = Constants.PROBABILITY_LEFT * source[successors[next + 1]];
+			double right = Constants.PROBABILITY_RIGHT * source[successors[next + 2]];
+
+			double subUtility = up + left + right;
+			if (dir == 0 || subUtility > maxSubUtility) {
+				maxSubUtility = subUtility;
+				maxUtilityIndex = dir;
+			}
+		}
+
+		//2. Set utility & policy of current state
+		float currentReward = grid.rewards[s];
+		double prevUtility = source[s];
+
+		//Utility of a state = currentStateReward + Max Possible Discounted Future Reward
+		double newUtility = currentReward + grid.discount * maxSubUtility;
+		target[s] = newUtility;
+		grid.policies[s] = (byte) maxUtilityIndex;
+
+		return (Math.abs(prevUtility - newUtility));
+	}
+
+	/**
+	 * calculateUtilityChange over the surviving directions of the state only, then eliminate the directions
+	 * that are provably suboptimal. Directions are unrolled so no array is needed for their sub utilities.
+	 */
+	private double calculateUtilityChangeOfActions(int s, double[] source, double[] target) {
+		int surviving = actions[s];
+		int next = s * StateCoordinate.TOTAL_DIRECTIONS * StateIndex.TOTAL_OUTCOMES;
+
+		//1. Sub utility of every surviving direction, eliminated directions are never the maximum
+		double up = (surviving & 1 << StateCoordinate.UP) != 0 ? subUtility(next, source) : Double.NEGATIVE_INFINITY;
+		next += StateIndex.TOTAL_OUTCOMES;
+		double down = (surviving & 1 << StateCoordinate.DOWN) != 0 ? subUtility(next, source) : Double.NEGATIVE_INFINITY;
+		next += StateIndex.TOTAL_OUTCOMES;
+		double left = (surviving & 1 << StateCoordinate.LEFT) != 0 ? subUtility(next, source) : Double.NEGATIVE_INFINITY;
+		next += StateIndex.TOTAL_OUTCOMES;
+		double right = (surviving & 1 << StateCoordinate.RIGHT) != 0 ? subUtility(next, source)
+				: Double.NEGATIVE_INFINITY;
+
+		//2. Maximum, the first direction on ties like calculateUtilityChange
+		double maxSubUtility = up;
+		int maxUtilityIndex = StateCoordinate.UP;
+		if (down > maxSubUtility) {
+			maxSubUtility = down;
+			maxUtilityIndex = StateCoordinate.DOWN;
+		}
+		if (left > maxSubUtility) {
+			maxSubUtility = left;
+			maxUtilityIndex = StateCoordinate.LEFT;
+		}
+		if (right > maxSubUtility) {
+			maxSubUtility = right;
+			maxUtilityIndex = StateCoordinate.RIGHT;
+		}
+
+		//3. Eliminate directions whose upper bound is below the lower bound of the best direction
+		double cutoff = maxSubUtility - 2 * errorBound;
+		if (up < cutoff)
+			surviving &= ~(1 << StateCoordinate.UP);
+		if (down < cutoff)
+			surviving &= ~(1 << StateCoordinate.DOWN);
+		if (left < cutoff)
+			surviving &= ~(1 << StateCoordinate.LEFT);
+		if (right < cutoff)
+			surviving &= ~(1 << StateCoordinate.RIGHT);
+		actions[s] = (byte) surviving;
+
+		//4. Set utility & policy of current state
+		double prevUtility = source[s];
+		double newUtility = grid.rewards[s] + grid.discount * maxSubUtility;
+		target[s] = newUtility;
+		grid.policies[s] = (byte) maxUtilityIndex;
+
+		return (Math.abs(prevUtility - newUtility));
+	}
+
+	/**
+	 * Expected utility of the 3 outcomes of a direction
+	 * @param next index of the first outcome in the successor table
+	 */
+	private double subUtility(int next, double[] source) {
+		int[] successors = grid.successors;
+		return Constants.PROBABILITY_UP * source[successors[next]] + Constants.PROBABILITY_LEFT
+				* source[successors[next + 1]] + Constants.PROBABILITY_RIGHT * source[successors[next + 2]];
+	}
+}
@@ -0,0 +1,84 @@
+package solver;
+
+import java.util.Arrays;
+
+import controller.GridEnvironment;
+import controller.StateIndex;
+
+/**
+ * Keeps a solved grid and re-converges it after single cell edits (new walls, moved goals).
+ * The previous solution is the warm start: only the edited cell and its adjacent cells are re-evaluated,
+ * and changes spread to the states that depend on them through the reverse successor index of the state index.
+ */
+public class IncrementalPlanner {
+	private final GridEnvironment grid;
+	private CompiledGrid compiledGrid;
+	private PrioritizedSweeping solver;
+	private final double threshold;
+
+	/**
+	 * Solve the grid from its current utilities
+	 * @param grid
+	 */
+	public IncrementalPlanner(GridEnvironment grid) {
+		this.grid = grid;
+		this.compiledGrid = new CompiledGrid(grid);
+		this.solver = new PrioritizedSweeping(compiledGrid);
+		this.threshold = compiledGrid.getParameters().getThreshold();
+		solver.solve(threshold);
+	}
+
+	/**
+	 * Change the state type of one cell and re-converge from the previous solution
+	 * Adding or removing a wall changes the state index: the grid is compiled again, warm started
+	 * with the current utilities and residual bounds of every cell.
+	 * @param col
+	 * @param row
+	 * @param stateType 'W', 'G', 'B' or 'X'
+	 * @return Number of state updates needed to re-converge
+	 */
+	public long setCellType(int col, int row, char stateType) {
+		boolean wasWall = compiledGrid.index(col, row) < 0;
+		int[] changedCells;
+		if (wasWall != (stateType == 'X')) {
+			//Current solution is kept in the grid states while the grid is changed and compiled again
+			compiledGrid.writeBack(grid);
+			changedCells = grid.setCellType(col, row, stateType);
+			compiledGrid = new CompiledGrid(grid);
+			solver = new PrioritizedSweeping(compiledGrid, solver);
+		} else {
+			changedCells = grid.setCellType(col, row, stateType);
+			if (!wasWall)
+				compiledGrid.updateState(grid, compiledGrid.index(col, row));
+		}
+
+		//Changed cells that are states in the current index
+		StateIndex index = compiledGrid.getStateIndex();
+		int[] changedStates = new int[changedCells.length];
+		int count = 0;
+		for (int cell : changedCells) {
+			int s = index.getStateOfCell(cell);
+			if (s >= 0)
+				changedStates[count++] = s;
+		}
+		return solver.repair(Arrays.copyOf(changedStates, count), threshold);
+	}
+
+	public CompiledGrid getCompiledGrid() {
+		return compiledGrid;
+	}
+
+	/**
+	 * Total number of Bellman backups evaluated since the planner was created
+	 */
+	public long getBackups() {
+		return solver.getBackups();
+	}
+
+	/**
+	 * Copy utilities & policies back to the grid for display
+	 */
+	public void writeBack() {
+		compiledGrid.writeBack(grid);
+	}
+}
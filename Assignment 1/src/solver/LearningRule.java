@@ -0,0 +1,8 @@
+package solver;
+
+public enum LearningRule {
+	// Off-policy: target is the reward plus the discounted best Q value of the next state
+	Q_LEARNING,
+	// On-policy: target uses the Q value of the epsilon-greedy action actually taken in the next state
+	SARSA;
+}
@@ -0,0 +1,405 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+/**
+ * Value iteration with multigrid corrections for large grids.
+ *
+ * Errors of value iteration that are smooth over the grid (all utilities too low by about the same amount,
+ * or by an amount that changes slowly from cell to cell) only shrink by the discount factor per sweep.
+ * After a value iteration sweep the residual of the current policy, R + discount * P U - U, is aggregated
+ * into 2x2 blocks of cells, recursively down to a single block, and the correction equation
+ * e = r + discount * P e of the policy is solved approximately on the blocks with a V-cycle: a fixed
+ * number of Gauss-Seidel sweeps per level before and after the correction of the next level. The correction
+ * of the blocks is added to the utilities of their cells.
+ *
+ * Corrections start once a sweep leaves the policies unchanged. Block averages of a non-symmetric policy are
+ * only an approximation of the fine grid, so a correction can overshoot. The damping of later corrections is
+ * halved whenever the sweep after a correction changes the utilities more than the sweep before it, and a
+ * correction is undone if that change is more than MAX_GROWTH times the smallest change so far. Below
+ * MIN_DAMPING only plain sweeps are run, so on grids where corrections do not help (open grids, where the
+ * policies settle late) the cost is a few V-cycles. Convergence is checked on the value iteration sweeps
+ * exactly like FlatValueIteration.
+ */
+public class MultigridSolver {
+	// Stencil of a level: [stay, up, down, left, right]
+	private static final int STENCIL = 5;
+	private static final int STAY = 0;
+	// Gauss-Seidel sweeps of a level before and after the correction of the next level
+	private static final int SMOOTHING_SWEEPS = 2;
+	// Corrections stop once the damping is halved below this
+	private static final double MIN_DAMPING = 1.0 / 16;
+	// A correction is undone if the sweep after it changes the utilities more than this times the smallest change
+	private static final double MAX_GROWTH = 4;
+	private static final float[] OUTCOME_PROBABILITY = { Constants.PROBABILITY_UP, Constants.PROBABILITY_LEFT,
+			Constants.PROBABILITY_RIGHT };
+
+	private final CompiledGrid grid;
+	private final FlatValueIteration solver;
+	// Block of every state of the fine grid in levels[0]
+	private final int[] fineBlock;
+	private final int[] fineBlockCol, fineBlockRow;
+	// levels[0] aggregates the fine grid, the last level is a single block
+	private final List<Level> levels = new ArrayList<>();
+	// Utilities before the last correction, restored if it is rejected
+	private final double[] previousUtilities;
+	// Policies before the last plain sweep
+	private final byte[] previousPolicies;
+
+	// Residual evaluations of the fine grid and block updates of the coarse levels
+	private long residualBackups;
+	private long coarseBackups;
+	private int corrections, rejectedCorrections;
+	private double damping = 1;
+
+	/**
+	 * One level of blocks with a dense index over the blocks that contain states
+	 */
+	private static class Level {
+		final int numCol, numRow;
+		final int[] cellOfState;
+		// neighbour[s * 5 + k]: state of the neighbouring block in stencil position k, -1 if there is none
+		final int[] neighbour;
+		// Number of states of the finer level in each block
+		final int[] size;
+		// Block of every state in the next level, null for the last level
+		int[] parent;
+
+		// Stencil probabilities of the current policy, right hand side and correction
+		final double[] probability;
+		final double[] rhs;
+		final double[] correction;
+
+		Level(int numCol, int numRow, int[] stateOfCell, int[] cellOfState, int[] size) {
+			this.numCol = numCol;
+			this.numRow = numRow;
+			this.cellOfState = cellOfState;
+			this.size = size;
+			int numStates = cellOfState.length;
+			this.neighbour = new int[numStates * STENCIL];
+			this.probability = new double[numStates * STENCIL];
+			this.rhs = new double[numStates];
+			this.correction = new double[numStates];
+
+			for (int s = 0; s < numStates; s++) {
+				neighbour[s * STENCIL + STAY] = s;
+				for (int dir = 0; dir < StateCoordinate.TOTAL_DIRECTIONS; dir++) {
+					int col = col(s) + StateCoordinate.COORDINATE_OFFSET[dir][0][0];
+					int row = row(s) + StateCoordinate.COORDINATE_OFFSET[dir][0][1];
+					boolean inside = col >= 0 && row >= 0 && col < numCol && row < numRow;
+					neighbour[s * STENCIL + 1 + dir] = inside ? stateOfCell[col * numRow + row] : -1;
+				}
+			}
+		}
+
+		int numStates() {
+			return cellOfState.length;
+		}
+
+		int col(int s) {
+			return cellOfState[s] / numRow;
+		}
+
+		int row(int s) {
+			return cellOfState[s] % numRow;
+		}
+	}
+
+	/**
+	 * @param grid solved in place
+	 */
+	public MultigridSolver(CompiledGrid grid) {
+		this.grid = grid;
+		this.solver = new FlatValueIteration(grid);
+		this.previousUtilities = new double[grid.numStates];
+		this.previousPolicies = new byte[grid.numStates];
+
+		//1. First level: 2x2 blocks of cells of the fine grid
+		int[] cellCol = new int[grid.numStates];
+		int[] cellRow = new int[grid.numStates];
+		for (int s = 0; s < grid.numStates; s++) {
+			cellCol[s] = grid.getCol(s);
+			cellRow[s] = grid.getRow(s);
+		}
+		this.fineBlock = new int[grid.numStates];
+		Level level = coarsen(cellCol, cellRow, grid.numCol, grid.numRow, fineBlock);
+		levels.add(level);
+		this.fineBlockCol = new int[grid.numStates];
+		this.fineBlockRow = new int[grid.numStates];
+		for (int s = 0; s < grid.numStates; s++) {
+			fineBlockCol[s] = level.col(fineBlock[s]);
+			fineBlockRow[s] = level.row(fineBlock[s]);
+		}
+
+		//2. Coarser levels down to a single block
+		while (level.numCol > 1 || level.numRow > 1) {
+			int[] col = new int[level.numStates()];
+			int[] row = new int[level.numStates()];
+			for (int s = 0; s < level.numStates(); s++) {
+				col[s] = level.col(s);
+				row[s] = level.row(s);
+			}
+			level.parent = new int[level.numStates()];
+			level = coarsen(col, row, level.numCol, level.numRow, level.parent);
+			levels.add(level);
+		}
+	}
+
+	/**
+	 * Group states into 2x2 blocks of their cells
+	 * @param col cell column of every state
+	 * @param row cell row of every state
+	 * @param numCol
+	 * @param numRow
+	 * @param parent filled with the block of every state
+	 * @return Level of the blocks that contain at least one state
+	 */
+	private static Level coarsen(int[] col, int[] row, int numCol, int numRow, int[] parent) {
+		int blockCols = (numCol + 1) / 2;
+		int blockRows = (numRow + 1) / 2;
+		int[] stateOfCell = new int[blockCols * blockRows];
+		for (int s = 0; s < col.length; s++)
+			stateOfCell[col[s] / 2 * blockRows + row[s] / 2] = 1;
+
+		//Number the blocks in cell order, like the state index
+		int numStates = 0;
+		for (int cell = 0; cell < stateOfCell.length; cell++)
+			stateOfCell[cell] = stateOfCell[cell] > 0 ? numStates++ : -1;
+		int[] cellOfState = new int[numStates];
+		for (int cell = 0; cell < stateOfCell.length; cell++)
+			if (stateOfCell[cell] >= 0)
+				cellOfState[stateOfCell[cell]] = cell;
+
+		int[] size = new int[numStates];
+		for (int s = 0; s < col.length; s++) {
+			parent[s] = stateOfCell[col[s] / 2 * blockRows + row[s] / 2];
+			size[parent[s]]++;
+		}
+		return new Level(blockCols, blockRows, stateOfCell, cellOfState, size);
+	}
+
+	/**
+	 * Sweep the fine grid until the maximum change in utility is within the threshold,
+	 * with a multigrid correction before every sweep once the policies stop changing.
+	 * @param threshold
+	 * @return Number of value iteration sweeps
+	 */
+	public int solve(double threshold) {
+		//1. Value iteration sweep, also sets the policies the corrections are computed for
+		System.arraycopy(grid.policies, 0, previousPolicies, 0, grid.numStates);
+		double maxChangeInUtility = solver.sweep();
+		double smallestChange = maxChangeInUtility;
+		int sweeps = 1;
+		while (maxChangeInUtility > threshold) {
+			//2. Plain sweeps while the policies change (the correction is only valid for a fixed policy)
+			if (damping < MIN_DAMPING || !Arrays.equals(previousPolicies, grid.policies)) {
+				System.arraycopy(grid.policies, 0, previousPolicies, 0, grid.numStates);
+				maxChangeInUtility = solver.sweep();
+				sweeps++;
+				continue;
+			}
+
+			//3. Correction of the smooth error of the current policy
+			System.arraycopy(grid.utilities, 0, previousUtilities, 0, grid.numStates);
+			aggregate();
+			vCycle(0);
+			double[] correction = levels.get(0).correction;
+			for (int s = 0; s < grid.numStates; s++)
+				grid.utilities[s] += damping * correction[fineBlock[s]];
+			corrections++;
+
+			//4. Damp later corrections if this one did not reduce the change, undo it if it grew too much
+			smallestChange = Math.min(smallestChange, maxChangeInUtility);
+			double changeAfterCorrection = solver.sweep();
+			sweeps++;
+			if (changeAfterCorrection > maxChangeInUtility)
+				damping /= 2;
+			if (changeAfterCorrection > MAX_GROWTH * smallestChange) {
+				System.arraycopy(previousUtilities, 0, grid.utilities, 0, grid.numStates);
+				rejectedCorrections++;
+				changeAfterCorrection = solver.sweep();
+				sweeps++;
+			}
+			maxChangeInUtility = changeAfterCorrection;
+		}
+		return sweeps;
+	}
+
+	/**
+	 * Aggregate the fine residual and transition probabilities of the current policy into the first level,
+	 * then the probabilities of every level into the next
+	 */
+	private void aggregate() {
+		Level first = levels.get(0);
+		Arrays.fill(first.probability, 0);
+		Arrays.fill(first.rhs, 0);
+
+		double[] u = grid.utilities;
+		for (int s = 0; s < grid.numStates; s++) {
+			int block = fineBlock[s];
+			double weight = 1.0 / first.size[block];
+			int next = (s * StateCoordinate.TOTAL_DIRECTIONS + grid.policies[s]) * StateIndex.TOTAL_OUTCOMES;
+
+			double subUtility = 0;
+			for (int o = 0; o < StateIndex.TOTAL_OUTCOMES; o++) {
+				int t = grid.successors[next + o];
+				subUtility += OUTCOME_PROBABILITY[o] * u[t];
+				int k = direction(fineBlockCol[s], fineBlockRow[s], fineBlockCol[t], fineBlockRow[t]);
+				first.probability[block * STENCIL + k] += weight * OUTCOME_PROBABILITY[o];
+			}
+			//Residual of the policy: how much one more backup would change the utility
+			first.rhs[block] += weight * (grid.rewards[s] + grid.discount * subUtility - u[s]);
+		}
+		residualBackups += grid.numStates;
+
+		for (int l = 0; l + 1 < levels.size(); l++) {
+			Level fine = levels.get(l);
+			Level coarse = levels.get(l + 1);
+			Arrays.fill(coarse.probability, 0);
+			for (int s = 0; s < fine.numStates(); s++) {
+				int block = fine.parent[s];
+				double weight = 1.0 / coarse.size[block];
+				for (int k = 0; k < STENCIL; k++) {
+					double p = fine.probability[s * STENCIL + k];
+					if (p == 0)
+						continue;
+					int target = fine.parent[fine.neighbour[s * STENCIL + k]];
+					int position = direction(coarse.col(block), coarse.row(block), coarse.col(target),
+							coarse.row(target));
+					coarse.probability[block * STENCIL + position] += weight * p;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stencil position of a move between blocks: STAY or 1 + direction
+	 */
+	private static int direction(int col, int row, int targetCol, int targetRow) {
+		if (targetRow < row)
+			return 1 + StateCoordinate.UP;
+		if (targetRow > row)
+			return 1 + StateCoordinate.DOWN;
+		if (targetCol < col)
+			return 1 + StateCoordinate.LEFT;
+		if (targetCol > col)
+			return 1 + StateCoordinate.RIGHT;
+		return STAY;
+	}
+
+	/**
+	 * Solve e = rhs + discount * P e of a level approximately, starting from zero:
+	 * smoothing sweeps, correction from the next level, smoothing sweeps. The last level is a single block
+	 * and solved exactly by one sweep.
+	 * @param l
+	 */
+	private void vCycle(int l) {
+		Level level = levels.get(l);
+		Arrays.fill(level.correction, 0);
+		if (l == levels.size() - 1) {
+			gaussSeidel(level);
+			return;
+		}
+
+		for (int i = 0; i < SMOOTHING_SWEEPS; i++)
+			gaussSeidel(level);
+
+		//Residual of this level is the right hand side of the next one
+		Level coarse = levels.get(l + 1);
+		Arrays.fill(coarse.rhs, 0);
+		for (int s = 0; s < level.numStates(); s++) {
+			int block = level.parent[s];
+			coarse.rhs[block] += (level.rhs[s] + grid.discount * expectedCorrection(level, s) - level.correction[s])
+					/ coarse.size[block];
+		}
+		coarseBackups += level.numStates();
+
+		vCycle(l + 1);
+		for (int s = 0; s < level.numStates(); s++)
+			level.correction[s] += coarse.correction[level.parent[s]];
+
+		for (int i = 0; i < SMOOTHING_SWEEPS; i++)
+			gaussSeidel(level);
+	}
+
+	/**
+	 * One in-place sweep of e_s = (rhs_s + discount * sum of P e over the neighbours) / (1 - discount * P_ss)
+	 */
+	private void gaussSeidel(Level level) {
+		double discount = grid.discount;
+		for (int s = 0; s < level.numStates(); s++) {
+			double stay = level.probability[s * STENCIL + STAY];
+			double neighbours = expectedCorrection(level, s) - stay * level.correction[s];
+			level.correction[s] = (level.rhs[s] + discount * neighbours) / (1 - discount * stay);
+		}
+		coarseBackups += level.numStates();
+	}
+
+	/**
+	 * Expected correction after one step from a block: sum over the stencil of P e
+	 */
+	private static double expectedCorrection(Level level, int s) {
+		double sum = 0;
+		for (int k = 0; k < STENCIL; k++) {
+			double p = level.probability[s * STENCIL + k];
+			if (p != 0)
+				sum += p * level.correction[level.neighbour[s * STENCIL + k]];
+		}
+		return sum;
+	}
+
+	/**
+	 * Number of levels of blocks, not counting the fine grid
+	 */
+	public int getNumOfLevels() {
+		return levels.size();
+	}
+
+	/**
+	 * Number of blocks of a level
+	 */
+	public int getNumOfStates(int level) {
+		return levels.get(level).numStates();
+	}
+
+	/**
+	 * Number of multigrid corrections computed
+	 */
+	public int getCorrections() {
+		return corrections;
+	}
+
+	/**
+	 * Number of corrections that were undone because the next sweep changed the utilities more
+	 */
+	public int getRejectedCorrections() {
+		return rejectedCorrections;
+	}
+
+	/**
+	 * Bellman backups of the fine grid: value iteration sweeps and residual evaluations
+	 */
+	public long getFineBackups() {
+		return solver.getBackups() + residualBackups;
+	}
+
+	/**
+	 * Block updates of all coarse levels
+	 */
+	public long getCoarseBackups() {
+		return coarseBackups;
+	}
+
+	/**
+	 * Fine and coarse backups
+	 */
+	public long getBackups() {
+		return getFineBackups() + coarseBackups;
+	}
+}
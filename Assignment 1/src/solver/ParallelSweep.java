@@ -0,0 +1,60 @@
+package solver;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that splits a sweep into stripes of consecutive states and reduces the max change in utility.
+ */
+class ParallelSweep extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Backup of a contiguous range of state indices
+	 */
+	interface StripeBackup {
+		/**
+		 * @return Maximum change in utility over states [from, to)
+		 */
+		double backup(int from, int to);
+	}
+
+	private final StripeBackup stripe;
+	private final int from, to, stripeSize;
+	double maxChangeInUtility;
+
+	/**
+	 * @param stripe backup applied to each stripe
+	 * @param from
+	 * @param to
+	 * @param stripeSize maximum number of states handled by one task
+	 */
+	ParallelSweep(StripeBackup stripe, int from, int to, int stripeSize) {
+		this.stripe = stripe;
+		this.from = from;
+		this.to = to;
+		this.stripeSize = stripeSize;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= stripeSize) {
+			maxChangeInUtility = stripe.backup(from, to);
+			return;
+		}
+
+		int mid = (from + to) >>> 1;
+		ParallelSweep left = new ParallelSweep(stripe, from, mid, stripeSize);
+		ParallelSweep right = new ParallelSweep(stripe, mid, to, stripeSize);
+		invokeAll(left, right);
+		maxChangeInUtility = Math.max(left.maxChangeInUtility, right.maxChangeInUtility);
+	}
+
+	/**
+	 * Number of states per stripe so that every thread gets a few stripes to balance load
+	 * @param numStates
+	 * @param threads
+	 */
+	static int stripeSize(int numStates, int threads) {
+		return Math.max(1, numStates / (threads * 4));
+	}
+}
@@ -0,0 +1,211 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import controller.StateIndex;
+import entities.Parameters;
+import entities.StateType;
+
+/**
+ * Solves one grid with value iteration for many combinations of discount factor, rewards and epsilon.
+ * The state index (successors of every state) is built once and shared by all runs, each run only
+ * allocates its own rewards, utilities and policies.
+ *
+ * With warm start, the combinations are ordered into a nearest neighbour path through parameter space and
+ * the path is cut into one chain per thread. Each run of a chain starts from the utilities of the previous
+ * run, its nearest solved neighbour. Value iteration converges from any start and stops on the same
+ * maximum change in utility, so warm started results meet the same epsilon as cold started ones.
+ */
+public class ParameterSweep {
+	private final StateIndex index;
+
+	/**
+	 * Result of one combination
+	 */
+	public static class Result {
+		private final Parameters parameters;
+		private final int iterations;
+		private final long backups;
+		private final long nanoseconds;
+		private final int warmStartFrom;
+		private final double[] utilities;
+
+		Result(Parameters parameters, int iterations, long backups, long nanoseconds, int warmStartFrom,
+				double[] utilities) {
+			this.parameters = parameters;
+			this.iterations = iterations;
+			this.backups = backups;
+			this.nanoseconds = nanoseconds;
+			this.warmStartFrom = warmStartFrom;
+			this.utilities = utilities;
+		}
+
+		public Parameters getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Number of value iteration sweeps to converge
+		 */
+		public int getIterations() {
+			return iterations;
+		}
+
+		public long getBackups() {
+			return backups;
+		}
+
+		public long getNanoseconds() {
+			return nanoseconds;
+		}
+
+		/**
+		 * Position of the combination this run started from, -1 for a cold start from the rewards
+		 */
+		public int getWarmStartFrom() {
+			return warmStartFrom;
+		}
+
+		/**
+		 * Converged utilities in state index order (see StateIndex)
+		 */
+		public double[] getUtilities() {
+			return utilities;
+		}
+	}
+
+	/**
+	 * @param index state index of the grid, only read by the runs
+	 */
+	public ParameterSweep(StateIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Solve every combination on a pool of the given size
+	 * @param combinations
+	 * @param threads
+	 * @param warmStart start each run from the utilities of its nearest solved neighbour
+	 * @return Results in the order of the combinations
+	 */
+	public List<Result> run(List<Parameters> combinations, int threads, boolean warmStart) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+
+		//1. Chains of combinations, one per thread. Without warm start the order does not matter.
+		int[] order = warmStart ? nearestNeighbourPath(combinations) : identity(combinations.size());
+		int numChains = Math.min(threads, Math.max(1, combinations.size()));
+		int chainSize = (combinations.size() + numChains - 1) / numChains;
+
+		//2. Run the chains on the pool
+		Result[] results = new Result[combinations.size()];
+		ExecutorService pool = Executors.newFixedThreadPool(numChains);
+		try {
+			List<Future<?>> chains = new ArrayList<>();
+			for (int from = 0; from < order.length; from += chainSize) {
+				final int start = from, end = Math.min(from + chainSize, order.length);
+				chains.add(pool.submit(() -> {
+					Result previous = null;
+					int previousPosition = -1;
+					for (int i = start; i < end; i++) {
+						int position = order[i];
+						previous = solve(combinations.get(position), warmStart ? previous : null, previousPosition);
+						results[position] = previous;
+						previousPosition = position;
+					}
+				}));
+			}
+			for (Future<?> chain : chains)
+				chain.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Parameter sweep interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Parameter sweep failed.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		List<Result> list = new ArrayList<>(results.length);
+		for (Result result : results)
+			list.add(result);
+		return list;
+	}
+
+	/**
+	 * Solve one combination with in-place value iteration
+	 * @param parameters
+	 * @param previous result to start from, null to start from the rewards
+	 * @param previousPosition position of the previous combination
+	 */
+	private Result solve(Parameters parameters, Result previous, int previousPosition) {
+		long start = System.nanoTime();
+		CompiledGrid grid = new CompiledGrid(index, parameters);
+		if (previous != null)
+			System.arraycopy(previous.utilities, 0, grid.utilities, 0, grid.numStates);
+
+		FlatValueIteration solver = new FlatValueIteration(grid);
+		double threshold = parameters.getThreshold();
+		int iterations = 0;
+		double maxChangeInUtility;
+		do {
+			maxChangeInUtility = solver.sweep();
+			iterations++;
+		} while (maxChangeInUtility > threshold);
+
+		return new Result(parameters, iterations, solver.getBackups(), System.nanoTime() - start,
+				previous == null ? -1 : previousPosition, grid.utilities);
+	}
+
+	/**
+	 * Distance between the solutions of two combinations. Utilities scale with the horizon 1 / (1 - discount),
+	 * so discount factors are compared by horizon relative to the larger one. Epsilon does not change
+	 * the solution and is not part of the distance.
+	 */
+	static double distance(Parameters a, Parameters b) {
+		double horizonA = 1 / (1 - (double) a.getDiscountFactor());
+		double horizonB = 1 / (1 - (double) b.getDiscountFactor());
+		double distance = Math.abs(horizonA - horizonB) / Math.max(horizonA, horizonB);
+		for (StateType type : StateType.values())
+			distance += Math.abs(a.getReward(type) - b.getReward(type));
+		return distance;
+	}
+
+	/**
+	 * Greedy nearest neighbour path through the combinations, starting from the first one
+	 * @return Positions of the combinations in path order
+	 */
+	private static int[] nearestNeighbourPath(List<Parameters> combinations) {
+		int n = combinations.size();
+		int[] path = new int[n];
+		boolean[] visited = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			int next = 0;
+			if (i > 0) {
+				Parameters last = combinations.get(path[i - 1]);
+				double nearest = Double.POSITIVE_INFINITY;
+				for (int j = 0; j < n; j++) {
+					if (!visited[j] && distance(last, combinations.get(j)) < nearest) {
+						nearest = distance(last, combinations.get(j));
+						next = j;
+					}
+				}
+			}
+			path[i] = next;
+			visited[next] = true;
+		}
+		return path;
+	}
+
+	private static int[] identity(int n) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		return order;
+	}
+}
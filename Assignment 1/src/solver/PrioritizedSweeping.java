@@ -0,0 +1,239 @@
+package solver;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+/**
+ * Value iteration that only backs up the states with the largest Bellman residual.
+ * Every state keeps the expected utility of each direction (its sub utilities), so its exact residual
+ * is known without reading its successors. When a state's utility changes by delta, the sub utilities of
+ * the state itself and of its predecessors (found through the reverse successor index) move by
+ * delta * probability of reaching the state with that direction, and their exact residuals are queued again.
+ * Stops when no residual is above the threshold: the same condition as a full sweep with
+ * maximum change in utility below the threshold.
+ */
+public class PrioritizedSweeping {
+	private static final int DIRECTIONS = StateCoordinate.TOTAL_DIRECTIONS;
+
+	private final CompiledGrid grid;
+	private final int[] predecessors;
+	private final byte[] predecessorCount;
+	// weight[(s * 4 + i) * 4 + direction]: probability that predecessor i of s reaches s with that direction
+	private final float[] weight;
+	// selfWeight[s * 4 + direction]: probability that s stays in place with that direction
+	private final float[] selfWeight;
+	// subUtilities[s * 4 + direction]: expected utility of the successors of a direction
+	private final double[] subUtilities;
+	// Exact Bellman residual of every state for the current utilities
+	private final double[] residual;
+	private BucketQueue queue;
+	// Threshold of the last solve
+	private double threshold;
+
+	// Number of Bellman backups: full evaluations of the sub utilities of a state and state updates
+	private long backups;
+	// Number of predecessor sub utility updates after a change of utility
+	private long predecessorUpdates;
+
+	/**
+	 * @param grid predecessors are taken from its state index
+	 */
+	public PrioritizedSweeping(CompiledGrid grid) {
+		this.grid = grid;
+		this.predecessors = grid.index.getPredecessors();
+		this.predecessorCount = grid.index.getPredecessorCount();
+		this.weight = new float[grid.numStates * StateIndex.MAX_PREDECESSORS * DIRECTIONS];
+		this.selfWeight = new float[grid.numStates * DIRECTIONS];
+		this.subUtilities = new double[grid.numStates * DIRECTIONS];
+		this.residual = new double[grid.numStates];
+
+		//Transition probabilities into every state, per predecessor and direction
+		float[] probability = { Constants.PROBABILITY_UP, Constants.PROBABILITY_LEFT, Constants.PROBABILITY_RIGHT };
+		for (int s = 0; s < grid.numStates; s++) {
+			for (int dir = 0; dir < DIRECTIONS; dir++) {
+				int next = (s * DIRECTIONS + dir) * StateIndex.TOTAL_OUTCOMES;
+				for (int o = 0; o < StateIndex.TOTAL_OUTCOMES; o++) {
+					int t = grid.successors[next + o];
+					if (t == s) {
+						selfWeight[s * DIRECTIONS + dir] += probability[o];
+						continue;
+					}
+					int from = t * StateIndex.MAX_PREDECESSORS;
+					for (int i = from; i < from + predecessorCount[t]; i++)
+						if (predecessors[i] == s)
+							weight[i * DIRECTIONS + dir] += probability[o];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Continue from a previous solver after walls were added or removed and the grid was compiled again.
+	 * Sub utilities and residuals are carried over by cell, states that are new or whose successors changed
+	 * must be passed to repair().
+	 * @param grid
+	 * @param previous
+	 */
+	public PrioritizedSweeping(CompiledGrid grid, PrioritizedSweeping previous) {
+		this(grid);
+		this.backups = previous.backups;
+		this.predecessorUpdates = previous.predecessorUpdates;
+		if (previous.queue == null)
+			return;
+
+		for (int s = 0; s < grid.numStates; s++) {
+			int p = previous.grid.index.getStateOfCell(grid.index.getCell(s));
+			if (p >= 0) {
+				residual[s] = previous.residual[p];
+				System.arraycopy(previous.subUtilities, p * DIRECTIONS, subUtilities, s * DIRECTIONS, DIRECTIONS);
+			}
+		}
+		this.threshold = previous.threshold;
+		this.queue = new BucketQueue(grid.numStates, threshold);
+	}
+
+	/**
+	 * Back up states in order of residual until every residual is at most threshold.
+	 * Policies of all states are set to the best direction at the end.
+	 * @param threshold
+	 * @return Number of state updates
+	 */
+	public long solve(double threshold) {
+		this.threshold = threshold;
+		queue = new BucketQueue(grid.numStates, threshold);
+
+		//1. Queue every state whose residual is above the threshold
+		for (int s = 0; s < grid.numStates; s++)
+			evaluate(s, threshold);
+
+		//2. Propagate, then extract policy of the converged utilities
+		long updates = propagate(threshold);
+		extractPolicy();
+		return updates;
+	}
+
+	/**
+	 * Re-converge after the given states changed (reward, state type or successors), starting
+	 * from the utilities and sub utilities of the previous solve with the same threshold.
+	 * Only states whose utilities are affected are updated.
+	 * @param changedStates
+	 * @param threshold
+	 * @return Number of state updates
+	 */
+	public long repair(int[] changedStates, double threshold) {
+		if (queue == null || threshold != this.threshold)
+			return solve(threshold);
+
+		for (int s : changedStates)
+			evaluate(s, threshold);
+
+		long updates = propagate(threshold);
+		extractPolicy();
+		return updates;
+	}
+
+	/**
+	 * Evaluate the sub utilities of a state from its successors, then queue its residual
+	 */
+	private void evaluate(int s, double threshold) {
+		double[] u = grid.utilities;
+		int[] successors = grid.successors;
+		backups++;
+
+		int next = s * DIRECTIONS * StateIndex.TOTAL_OUTCOMES;
+		for (int dir = 0; dir < DIRECTIONS; dir++, next += StateIndex.TOTAL_OUTCOMES) {
+			double up = Constants.PROBABILITY_UP * u[successors[next]];
+			double left = Constants.PROBABILITY_LEFT * u[successors[next + 1]];
+			double right = Constants.PROBABILITY_RIGHT * u[successors[next + 2]];
+			subUtilities[s * DIRECTIONS + dir] = up + left + right;
+		}
+		requeue(s, threshold);
+	}
+
+	/**
+	 * Recompute the residual of a state from its sub utilities, queue it if above the threshold
+	 * and remove it from the queue otherwise
+	 */
+	private void requeue(int s, double threshold) {
+		residual[s] = Math.abs(newUtility(s) - grid.utilities[s]);
+		if (residual[s] > threshold)
+			queue.update(s, residual[s]);
+		else
+			queue.remove(s);
+	}
+
+	/**
+	 * Update the state with the highest residual, then move the sub utilities of the state and of its
+	 * predecessors by the change in utility and queue their new residuals, until the queue is empty.
+	 * @return Number of state updates
+	 */
+	private long propagate(double threshold) {
+		double[] u = grid.utilities;
+		long updates = 0;
+		while (!queue.isEmpty()) {
+			int s = queue.poll();
+			double newUtility = newUtility(s);
+			double changeInUtility = newUtility - u[s];
+			u[s] = newUtility;
+			backups++;
+			updates++;
+
+			//State may be its own successor (next to walls and grid edges)
+			for (int dir = 0; dir < DIRECTIONS; dir++)
+				subUtilities[s * DIRECTIONS + dir] += selfWeight[s * DIRECTIONS + dir] * changeInUtility;
+			requeue(s, threshold);
+
+			int from = s * StateIndex.MAX_PREDECESSORS;
+			for (int i = from; i < from + predecessorCount[s]; i++) {
+				int p = predecessors[i];
+				for (int dir = 0; dir < DIRECTIONS; dir++)
+					subUtilities[p * DIRECTIONS + dir] += weight[i * DIRECTIONS + dir] * changeInUtility;
+				requeue(p, threshold);
+				predecessorUpdates++;
+			}
+		}
+		return updates;
+	}
+
+	/**
+	 * Utility of a state after a backup with its current sub utilities
+	 */
+	private double newUtility(int s) {
+		int i = s * DIRECTIONS;
+		double maxSubUtility = Math.max(Math.max(subUtilities[i], subUtilities[i + 1]),
+				Math.max(subUtilities[i + 2], subUtilities[i + 3]));
+		return grid.rewards[s] + grid.discount * maxSubUtility;
+	}
+
+	/**
+	 * Set the policy of every state to the best direction for the current utilities,
+	 * from sub utilities evaluated again so rounding of the incremental updates does not decide ties
+	 */
+	private void extractPolicy() {
+		for (int s = 0; s < grid.numStates; s++) {
+			evaluate(s, threshold);
+			int best = 0;
+			for (int dir = 1; dir < DIRECTIONS; dir++)
+				if (subUtilities[s * DIRECTIONS + dir] > subUtilities[s * DIRECTIONS + best])
+					best = dir;
+			grid.policies[s] = (byte) best;
+		}
+	}
+
+	/**
+	 * Total number of Bellman backups: state updates, plus full evaluations of the initial residuals
+	 * and of the policy extraction
+	 */
+	public long getBackups() {
+		return backups;
+	}
+
+	/**
+	 * Number of times the sub utilities of a predecessor were moved after a change of utility
+	 * (4 multiply-adds each, cheaper than a backup)
+	 */
+	public long getPredecessorUpdates() {
+		return predecessorUpdates;
+	}
+}
@@ -0,0 +1,240 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+/**
+ * Monte Carlo rollouts of the current policy of a compiled grid under the 0.8 / 0.1 / 0.1 transition model.
+ * The grid has no terminal states, so every episode runs for a fixed horizon after which the discounted
+ * remainder is below epsilon: the mean return estimates the utility of the start state.
+ *
+ * Episodes are split over worker threads, each with its own SplittableRandom stream split from the seed,
+ * so results only depend on the seed and the number of threads. Steps read the successor table, policies
+ * and rewards of the compiled grid directly and allocate nothing.
+ */
+public class RolloutSimulator {
+	// Cumulative probability of the intended direction and of the left outcome (see StateIndex)
+	private static final double CUMULATIVE_UP = Constants.PROBABILITY_UP;
+	private static final double CUMULATIVE_LEFT = (double) Constants.PROBABILITY_UP + Constants.PROBABILITY_LEFT;
+
+	private final CompiledGrid grid;
+	private final int horizon;
+
+	/**
+	 * Statistics of the episodes from one start state
+	 */
+	public static class Statistics {
+		private long episodes;
+		private double sum, sumOfSquares;
+		// stepsToGoal[t]: number of episodes that first reached a green state after t steps
+		private final long[] stepsToGoal;
+		private long reachedGoal;
+
+		Statistics(int horizon) {
+			this.stepsToGoal = new long[horizon];
+		}
+
+		private void add(double episodeReturn, int steps) {
+			episodes++;
+			sum += episodeReturn;
+			sumOfSquares += episodeReturn * episodeReturn;
+			if (steps >= 0) {
+				stepsToGoal[steps]++;
+				reachedGoal++;
+			}
+		}
+
+		private void merge(Statistics other) {
+			episodes += other.episodes;
+			sum += other.sum;
+			sumOfSquares += other.sumOfSquares;
+			reachedGoal += other.reachedGoal;
+			for (int t = 0; t < stepsToGoal.length; t++)
+				stepsToGoal[t] += other.stepsToGoal[t];
+		}
+
+		public long getEpisodes() {
+			return episodes;
+		}
+
+		/**
+		 * Mean discounted return
+		 */
+		public double getMean() {
+			return sum / episodes;
+		}
+
+		/**
+		 * Sample standard deviation of the discounted return
+		 */
+		public double getStandardDeviation() {
+			if (episodes < 2)
+				return 0;
+			double mean = getMean();
+			return Math.sqrt(Math.max(0, (sumOfSquares - episodes * mean * mean) / (episodes - 1)));
+		}
+
+		/**
+		 * Half width of the 95% confidence interval of the mean return
+		 */
+		public double getConfidenceInterval() {
+			return 1.96 * getStandardDeviation() / Math.sqrt(episodes);
+		}
+
+		/**
+		 * Fraction of the episodes that reached a green state within the horizon
+		 */
+		public double getGoalRate() {
+			return (double) reachedGoal / episodes;
+		}
+
+		/**
+		 * Steps to the first green state that the given fraction of the goal reaching episodes did not exceed
+		 * @param quantile in [0, 1]
+		 * @return Number of steps, -1 if no episode reached a green state
+		 */
+		public int getStepsToGoal(double quantile) {
+			if (reachedGoal == 0)
+				return -1;
+			long rank = Math.max(1, (long) Math.ceil(quantile * reachedGoal));
+			long count = 0;
+			for (int t = 0; t < stepsToGoal.length; t++) {
+				count += stepsToGoal[t];
+				if (count >= rank)
+					return t;
+			}
+			return stepsToGoal.length - 1;
+		}
+
+		/**
+		 * Mean number of steps to the first green state over the episodes that reached one
+		 */
+		public double getMeanStepsToGoal() {
+			double total = 0;
+			for (int t = 0; t < stepsToGoal.length; t++)
+				total += (double) t * stepsToGoal[t];
+			return reachedGoal == 0 ? Double.NaN : total / reachedGoal;
+		}
+
+		/**
+		 * Number of episodes per number of steps to the first green state
+		 */
+		public long[] getStepsToGoalHistogram() {
+			return stepsToGoal;
+		}
+	}
+
+	/**
+	 * @param grid solved grid, its policies are followed and its rewards collected
+	 */
+	public RolloutSimulator(CompiledGrid grid) {
+		this.grid = grid;
+		this.horizon = horizon(grid);
+	}
+
+	/**
+	 * Smallest horizon H with discount^H * Rmax / (1 - discount) below epsilon, Rmax the largest absolute reward
+	 */
+	private static int horizon(CompiledGrid grid) {
+		double maxReward = 0;
+		for (int s = 0; s < grid.numStates; s++)
+			maxReward = Math.max(maxReward, Math.abs(grid.rewards[s]));
+		double discount = grid.discount;
+		double remainder = grid.getParameters().getEpsilon() * (1 - discount) / Math.max(maxReward, Double.MIN_NORMAL);
+		return Math.max(1, (int) Math.ceil(Math.log(remainder) / Math.log(discount)));
+	}
+
+	public int getHorizon() {
+		return horizon;
+	}
+
+	/**
+	 * Simulate episodes from one start state on a pool of worker threads
+	 * @param start state index of the start cell
+	 * @param episodes
+	 * @param threads
+	 * @param seed
+	 * @return Statistics over all episodes
+	 */
+	public Statistics simulate(int start, long episodes, int threads, long seed) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+		if (start < 0 || start >= grid.numStates)
+			throw new IllegalArgumentException("Start state must be a non-wall state of the grid.");
+
+		//1. One random stream per worker, split in worker order so results are reproducible
+		SplittableRandom random = new SplittableRandom(seed);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		Statistics total = new Statistics(horizon);
+		try {
+			List<Future<Statistics>> workers = new ArrayList<>(threads);
+			for (int w = 0; w < threads; w++) {
+				SplittableRandom stream = random.split();
+				long workerEpisodes = episodes / threads + (w < episodes % threads ? 1 : 0);
+				workers.add(pool.submit(() -> run(start, workerEpisodes, stream)));
+			}
+
+			//2. Merge the statistics of the workers
+			for (Future<Statistics> worker : workers)
+				total.merge(worker.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Rollouts interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Rollouts failed.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return total;
+	}
+
+	/**
+	 * Run episodes on this thread
+	 */
+	private Statistics run(int start, long episodes, SplittableRandom random) {
+		Statistics statistics = new Statistics(horizon);
+		int[] successors = grid.successors;
+		byte[] policies = grid.policies;
+		float[] rewards = grid.rewards;
+		double discount = grid.discount;
+		byte[] stateTypes = stateTypes();
+
+		for (long e = 0; e < episodes; e++) {
+			int s = start;
+			double episodeReturn = 0;
+			double weight = 1;
+			int stepsToGoal = -1;
+			for (int t = 0; t < horizon; t++) {
+				//1. Collect the reward of the current state
+				episodeReturn += weight * rewards[s];
+				weight *= discount;
+				if (stepsToGoal < 0 && stateTypes[s] == CompiledGrid.GREEN)
+					stepsToGoal = t;
+
+				//2. Follow the policy: intended direction, or slip to the left or right of it
+				double u = random.nextDouble();
+				int outcome = u < CUMULATIVE_UP ? 0 : u < CUMULATIVE_LEFT ? 1 : 2;
+				s = successors[(s * StateCoordinate.TOTAL_DIRECTIONS + policies[s]) * StateIndex.TOTAL_OUTCOMES
+						+ outcome];
+			}
+			statistics.add(episodeReturn, stepsToGoal);
+		}
+		return statistics;
+	}
+
+	private byte[] stateTypes() {
+		byte[] stateTypes = new byte[grid.numStates];
+		for (int s = 0; s < grid.numStates; s++)
+			stateTypes[s] = grid.index.getStateType(s);
+		return stateTypes;
+	}
+}
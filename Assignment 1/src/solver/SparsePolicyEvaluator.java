@@ -0,0 +1,94 @@
+package solver;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+/**
+ * Solves U = R + discount * P U for the current policy directly.
+ * P is stored sparse (at most 3 off-diagonal entries per state, self transitions merged into the diagonal)
+ * and the linear system is solved with successive over-relaxation (SOR) until the largest change
+ * in a sweep is below the tolerance.
+ */
+class SparsePolicyEvaluator {
+	private final CompiledGrid grid;
+
+	// Row s of P: off-diagonal entries columns[3s .. 3s + count[s]), probability of staying in s in diagonal
+	private final int[] columns;
+	private final double[] probabilities;
+	private final byte[] count;
+	private final double[] diagonal;
+
+	// Relaxation factor, 1 is plain Gauss-Seidel
+	private final double omega;
+
+	SparsePolicyEvaluator(CompiledGrid grid, double omega) {
+		if (omega <= 0 || omega >= 2)
+			throw new IllegalArgumentException("Relaxation factor must be in (0, 2).");
+
+		this.grid = grid;
+		this.omega = omega;
+		this.columns = new int[grid.numStates * StateIndex.TOTAL_OUTCOMES];
+		this.probabilities = new double[grid.numStates * StateIndex.TOTAL_OUTCOMES];
+		this.count = new byte[grid.numStates];
+		this.diagonal = new double[grid.numStates];
+	}
+
+	/**
+	 * Build the rows of P for the current policy of every state
+	 */
+	private void buildTransitionMatrix() {
+		float[] outcomeProbability = { Constants.PROBABILITY_UP, Constants.PROBABILITY_LEFT, Constants.PROBABILITY_RIGHT };
+
+		for (int s = 0; s < grid.numStates; s++) {
+			count[s] = 0;
+			diagonal[s] = 0;
+
+			int next = (s * StateCoordinate.TOTAL_DIRECTIONS + grid.policies[s]) * StateIndex.TOTAL_OUTCOMES;
+			for (int o = 0; o < StateIndex.TOTAL_OUTCOMES; o++) {
+				int t = grid.successors[next + o];
+				if (t == s) {
+					diagonal[s] += outcomeProbability[o];
+				} else {
+					int i = s * StateIndex.TOTAL_OUTCOMES + count[s]++;
+					columns[i] = t;
+					probabilities[i] = outcomeProbability[o];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve the utilities of the current policy in place, starting from the current utilities.
+	 * @param tolerance stop when the largest change in utility of a sweep is at most tolerance
+	 * @return Number of SOR sweeps
+	 */
+	int evaluate(double tolerance) {
+		buildTransitionMatrix();
+
+		double[] u = grid.utilities;
+		double discount = grid.discount;
+		int sweeps = 0;
+		double maxChangeInUtility;
+		do {
+			maxChangeInUtility = 0;
+			for (int s = 0; s < grid.numStates; s++) {
+				//Row s: (1 - discount * P_ss) U_s = R_s + discount * sum_t P_st U_t
+				double sum = 0;
+				int from = s * StateIndex.TOTAL_OUTCOMES;
+				for (int i = from; i < from + count[s]; i++)
+					sum += probabilities[i] * u[columns[i]];
+				double solved = (grid.rewards[s] + discount * sum) / (1 - discount * diagonal[s]);
+
+				double newUtility = u[s] + omega * (solved - u[s]);
+				double changeInUtility = Math.abs(newUtility - u[s]);
+				if (changeInUtility > maxChangeInUtility)
+					maxChangeInUtility = changeInUtility;
+				u[s] = newUtility;
+			}
+			sweeps++;
+		} while (maxChangeInUtility > tolerance);
+
+		return sweeps;
+	}
+}
@@ -0,0 +1,217 @@
+package solver;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs sweeps of a Bellman update over the compiled grid with the selected sweep strategy.
+ */
+public abstract class SweepSolver {
+	protected final CompiledGrid grid;
+	private final SweepStrategy strategy;
+
+	// Parallel sweeps only
+	private final ForkJoinPool pool;
+	private final int stripeSize;
+	private double[] nextUtilities;
+	// States of each checkerboard colour ((col + row) % 2), for red-black sweeps
+	private int[][] colourStates;
+	// SIMD kernel of vector sweeps, null if the solver has none or the Vector API is not available
+	private BellmanKernel kernel;
+	private boolean kernelCreated;
+
+	// Number of Bellman backups (state updates) run by this solver
+	protected long backups;
+
+	/**
+	 * @param grid
+	 * @param strategy
+	 * @param threads number of worker threads for parallel strategies
+	 */
+	protected SweepSolver(CompiledGrid grid, SweepStrategy strategy, int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+
+		this.grid = grid;
+		this.strategy = strategy;
+		if (strategy == SweepStrategy.GAUSS_SEIDEL) {
+			this.pool = null;
+			this.stripeSize = 0;
+		} else if (strategy == SweepStrategy.VECTOR) {
+			this.pool = null;
+			this.stripeSize = 0;
+			this.nextUtilities = grid.utilities.clone();
+		} else {
+			this.pool = new ForkJoinPool(threads);
+			this.stripeSize = ParallelSweep.stripeSize(grid.numStates, threads);
+			if (strategy == SweepStrategy.JACOBI)
+				this.nextUtilities = grid.utilities.clone();
+			else
+				this.colourStates = splitColours();
+		}
+	}
+
+	private int[][] splitColours() {
+		int[] count = new int[2];
+		for (int s = 0; s < grid.numStates; s++)
+			count[(grid.getCol(s) + grid.getRow(s)) & 1]++;
+
+		int[][] states = { new int[count[0]], new int[count[1]] };
+		count[0] = count[1] = 0;
+		for (int s = 0; s < grid.numStates; s++) {
+			int colour = (grid.getCol(s) + grid.getRow(s)) & 1;
+			states[colour][count[colour]++] = s;
+		}
+		return states;
+	}
+
+	/**
+	 * Sweep strategy selected for this solver
+	 */
+	public SweepStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Calculate the utility of the given state from source and store it in target.
+	 * @param s
+	 * @param source utilities read for the neighbouring states
+	 * @param target utilities the new utility is written to
+	 * @return The difference previous Utility and new update Utility
+	 */
+	abstract double calculateUtilityChange(int s, double[] source, double[] target);
+
+	/**
+	 * SIMD kernel for vector sweeps, created on the first vector sweep
+	 * @return null to run vector sweeps with scalar backups
+	 */
+	BellmanKernel createKernel() {
+		return null;
+	}
+
+	/**
+	 * Run one sweep over all states with the selected strategy.
+	 * No objects are allocated per state during the sweep.
+	 * @return Maximum change in utility in this sweep
+	 */
+	protected double runSweep() {
+		backups += grid.numStates;
+		switch (strategy) {
+		case JACOBI:
+			return jacobiSweep();
+		case RED_BLACK:
+			return Math.max(colourSweep(0), colourSweep(1));
+		case VECTOR:
+			return vectorSweep();
+		default:
+			return gaussSeidelSweep(0, grid.numStates);
+		}
+	}
+
+	/**
+	 * In-place sweep over states [from, to) (same order as the State[][] loops: col, then row)
+	 */
+	private double gaussSeidelSweep(int from, int to) {
+		double[] u = grid.utilities;
+		double maxChangeInUtility = 0;
+		for (int s = from; s < to; s++) {
+			double changeInUtility = calculateUtilityChange(s, u, u);
+			if (changeInUtility > maxChangeInUtility)
+				maxChangeInUtility = changeInUtility;
+		}
+		return maxChangeInUtility;
+	}
+
+	/**
+	 * Synchronous sweep: new utilities are computed from the previous sweep only,
+	 * so stripes of states are independent and run in parallel. Buffers are swapped afterwards.
+	 */
+	private double jacobiSweep() {
+		final double[] u = grid.utilities;
+		final double[] next = nextUtilities;
+
+		ParallelSweep task = new ParallelSweep((from, to) -> synchronousSweep(from, to, u, next), 0, grid.numStates,
+				stripeSize);
+		pool.invoke(task);
+
+		nextUtilities = u;
+		grid.utilities = next;
+		return task.maxChangeInUtility;
+	}
+
+	/**
+	 * Synchronous sweep on this thread: the kernel backs up as many states as fill its vector lanes,
+	 * the remaining states (or all of them without a kernel) use the scalar backup.
+	 */
+	private double vectorSweep() {
+		if (!kernelCreated) {
+			kernel = createKernel();
+			kernelCreated = true;
+		}
+
+		double[] u = grid.utilities;
+		double[] next = nextUtilities;
+		double maxChangeInUtility = 0;
+		int from = 0;
+		if (kernel != null) {
+			maxChangeInUtility = kernel.sweep(u, next);
+			from = kernel.getLimit();
+		}
+		maxChangeInUtility = Math.max(maxChangeInUtility, synchronousSweep(from, grid.numStates, u, next));
+
+		nextUtilities = u;
+		grid.utilities = next;
+		return maxChangeInUtility;
+	}
+
+	/**
+	 * Back up states [from, to) from source into target
+	 */
+	private double synchronousSweep(int from, int to, double[] source, double[] target) {
+		double maxChangeInUtility = 0;
+		for (int s = from; s < to; s++) {
+			double changeInUtility = calculateUtilityChange(s, source, target);
+			if (changeInUtility > maxChangeInUtility)
+				maxChangeInUtility = changeInUtility;
+		}
+		return maxChangeInUtility;
+	}
+
+	/**
+	 * In-place sweep over the states of one checkerboard colour ((col + row) % 2 == colour).
+	 * Neighbours of a state always have the other colour, so all states of this colour
+	 * can be updated in parallel from the fresh values of the other colour.
+	 * @param colour 0 or 1
+	 */
+	private double colourSweep(final int colour) {
+		final double[] u = grid.utilities;
+		final int[] states = colourStates[colour];
+
+		ParallelSweep task = new ParallelSweep((from, to) -> {
+			double maxChangeInUtility = 0;
+			for (int i = from; i < to; i++) {
+				double changeInUtility = calculateUtilityChange(states[i], u, u);
+				if (changeInUtility > maxChangeInUtility)
+					maxChangeInUtility = changeInUtility;
+			}
+			return maxChangeInUtility;
+		}, 0, states.length, stripeSize);
+		pool.invoke(task);
+
+		return task.maxChangeInUtility;
+	}
+
+	/**
+	 * Total number of Bellman backups run by this solver
+	 */
+	public long getBackups() {
+		return backups;
+	}
+
+	/**
+	 * Release worker threads of parallel strategies
+	 */
+	public void shutdown() {
+		if (pool != null)
+			pool.shutdown();
+	}
+}
@@ -0,0 +1,12 @@
+package solver;
+
+public enum SweepStrategy {
+	// Single thread, in-place updates in state index order (col, then row)
+	GAUSS_SEIDEL,
+	// Double-buffered updates from the previous sweep, stripes of states run in parallel
+	JACOBI,
+	// In-place updates of one checkerboard colour at a time, stripes of states run in parallel
+	RED_BLACK,
+	// Double-buffered like JACOBI on a single thread, with the SIMD kernel of the solver if it has one
+	VECTOR;
+}
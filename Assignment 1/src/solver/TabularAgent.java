@@ -0,0 +1,221 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import controller.StateIndex;
+import entities.Constants;
+import entities.StateCoordinate;
+
+/**
+ * Model-free tabular learner (Q-learning or SARSA) that uses the compiled grid as a simulator.
+ * The agent only samples transitions from the successor table, it never reads the transition probabilities.
+ *
+ * Q values are kept in one flat table q[s * 4 + direction] with Q(s, a) = R(s) + discount * E[V(s')],
+ * so max over a of Q(s, a) converges to the value iteration utility of s. Episodes start in a random state
+ * (exploring starts) and run for a fixed number of steps with epsilon-greedy actions.
+ *
+ * Parallel actors update the shared table without locks (Hogwild): a lost update is rare with many states
+ * and only costs one sample. Learning rates decay per state-action with the number of visits as
+ * 1 / (1 + visits)^0.6 down to the rate of 2^20 visits, taken from a precomputed table, so the step loop
+ * allocates nothing.
+ */
+public class TabularAgent {
+	private static final double CUMULATIVE_UP = Constants.PROBABILITY_UP;
+	private static final double CUMULATIVE_LEFT = (double) Constants.PROBABILITY_UP + Constants.PROBABILITY_LEFT;
+	private static final int DIRECTIONS = StateCoordinate.TOTAL_DIRECTIONS;
+
+	// Learning rate for a number of visits, the last entry is the smallest learning rate
+	private static final double LEARNING_RATE_EXPONENT = 0.6;
+	private static final int LEARNING_RATE_TABLE_SIZE = 1 << 20;
+	private static final float[] LEARNING_RATE = learningRates();
+
+	private final CompiledGrid grid;
+	private final LearningRule rule;
+	private final double exploration;
+	private final int episodeLength;
+
+	// Shared by all actors, q[s * 4 + direction]
+	private final double[] q;
+	// Visits of every state-action, only used to pick the learning rate
+	private final int[] visits;
+
+	// Totals of all train() calls
+	private long episodes;
+	private long steps;
+
+	/**
+	 * @param grid simulator: successors, rewards and discount factor of the run
+	 * @param rule
+	 * @param exploration probability of a random action (epsilon-greedy)
+	 * @param episodeLength number of steps of an episode
+	 */
+	public TabularAgent(CompiledGrid grid, LearningRule rule, double exploration, int episodeLength) {
+		if (exploration < 0 || exploration > 1)
+			throw new IllegalArgumentException("Exploration must be in [0, 1].");
+		if (episodeLength < 1)
+			throw new IllegalArgumentException("Episode length must be a positive integer.");
+
+		this.grid = grid;
+		this.rule = rule;
+		this.exploration = exploration;
+		this.episodeLength = episodeLength;
+		this.q = new double[grid.numStates * DIRECTIONS];
+		this.visits = new int[grid.numStates * DIRECTIONS];
+
+		//Q values start from the rewards, as utilities do for value iteration
+		for (int s = 0; s < grid.numStates; s++)
+			for (int dir = 0; dir < DIRECTIONS; dir++)
+				q[s * DIRECTIONS + dir] = grid.rewards[s];
+	}
+
+	private static float[] learningRates() {
+		float[] rates = new float[LEARNING_RATE_TABLE_SIZE];
+		for (int n = 0; n < rates.length; n++)
+			rates[n] = (float) (1 / Math.pow(1 + n, LEARNING_RATE_EXPONENT));
+		return rates;
+	}
+
+	/**
+	 * Train for the given number of episodes on a pool of actors
+	 * @param episodes
+	 * @param threads number of actors
+	 * @param seed actors use random streams split from the seed
+	 */
+	public void train(long episodes, int threads, long seed) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be a positive integer.");
+
+		SplittableRandom random = new SplittableRandom(seed);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> actors = new ArrayList<>(threads);
+			for (int w = 0; w < threads; w++) {
+				SplittableRandom stream = random.split();
+				long actorEpisodes = episodes / threads + (w < episodes % threads ? 1 : 0);
+				actors.add(pool.submit(() -> run(actorEpisodes, stream)));
+			}
+			for (Future<?> actor : actors)
+				actor.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Training interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Training failed.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		this.episodes += episodes;
+		this.steps += episodes * episodeLength;
+	}
+
+	/**
+	 * Run episodes of one actor
+	 */
+	private void run(long episodes, SplittableRandom random) {
+		int[] successors = grid.successors;
+		float[] rewards = grid.rewards;
+		double discount = grid.discount;
+		int numStates = grid.numStates;
+
+		for (long e = 0; e < episodes; e++) {
+			int s = random.nextInt(numStates);
+			int action = chooseAction(s, random);
+			for (int t = 0; t < episodeLength; t++) {
+				//1. Sample the next state: intended direction, or slip to the left or right of it
+				double u = random.nextDouble();
+				int outcome = u < CUMULATIVE_UP ? 0 : u < CUMULATIVE_LEFT ? 1 : 2;
+				int next = successors[(s * DIRECTIONS + action) * StateIndex.TOTAL_OUTCOMES + outcome];
+
+				//2. Target from the next state: best action (Q-learning) or the action taken next (SARSA)
+				int nextAction = chooseAction(next, random);
+				double nextQ = rule == LearningRule.SARSA ? q[next * DIRECTIONS + nextAction] : q[next * DIRECTIONS
+						+ bestAction(next)];
+				double target = rewards[s] + discount * nextQ;
+
+				//3. Move Q(s, a) towards the target
+				int i = s * DIRECTIONS + action;
+				int n = visits[i];
+				if (n < Integer.MAX_VALUE)
+					visits[i] = n + 1;
+				double rate = LEARNING_RATE[Math.min(n, LEARNING_RATE_TABLE_SIZE - 1)];
+				q[i] += rate * (target - q[i]);
+
+				s = next;
+				action = nextAction;
+			}
+		}
+	}
+
+	/**
+	 * Epsilon-greedy action of a state
+	 */
+	private int chooseAction(int s, SplittableRandom random) {
+		if (exploration > 0 && random.nextDouble() < exploration)
+			return random.nextInt(DIRECTIONS);
+		return bestAction(s);
+	}
+
+	/**
+	 * Action with the largest Q value of a state, the first one on ties
+	 */
+	private int bestAction(int s) {
+		int i = s * DIRECTIONS;
+		int best = 0;
+		for (int dir = 1; dir < DIRECTIONS; dir++)
+			if (q[i + dir] > q[i + best])
+				best = dir;
+		return best;
+	}
+
+	/**
+	 * Learned utility of a state: max over a of Q(s, a)
+	 */
+	public double getUtility(int s) {
+		return q[s * DIRECTIONS + bestAction(s)];
+	}
+
+	/**
+	 * Greedy policy of a state
+	 */
+	public int getPolicy(int s) {
+		return bestAction(s);
+	}
+
+	/**
+	 * Largest difference between the learned utilities and the given utilities
+	 * @param utilities in state index order, e.g. solved by value iteration
+	 */
+	public double maxError(double[] utilities) {
+		double maxError = 0;
+		for (int s = 0; s < grid.numStates; s++)
+			maxError = Math.max(maxError, Math.abs(getUtility(s) - utilities[s]));
+		return maxError;
+	}
+
+	/**
+	 * Number of states whose greedy policy differs from the given policy
+	 * @param policies solved grid over the same state index
+	 */
+	public int policyDifferences(CompiledGrid policies) {
+		int differences = 0;
+		for (int s = 0; s < grid.numStates; s++)
+			if (bestAction(s) != policies.getPolicy(s))
+				differences++;
+		return differences;
+	}
+
+	public long getEpisodes() {
+		return episodes;
+	}
+
+	public long getSteps() {
+		return steps;
+	}
+}
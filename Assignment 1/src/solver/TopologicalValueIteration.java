@@ -0,0 +1,239 @@
+package solver;
+
+import java.util.Arrays;
+
+import controller.StateIndex;
+import entities.StateCoordinate;
+
+/**
+ * Value iteration ordered by the strongly connected components of the state graph.
+ *
+ * The utility of a state only depends on its successors, so when the graph is split into strongly
+ * connected components, the components can be solved one at a time in reverse topological order
+ * (every component after all components it drains into), each to convergence, and are not backed up again.
+ *
+ * Every move of a grid can be undone by the opposite move, so the graph of all actions is a single component
+ * per connected region. The graph is therefore built from the transitions of the current greedy policy only:
+ * a state depends on the 3 outcomes of its best action, and the components are mostly short chains of cells
+ * across the flow towards the green states. Components are still solved with full Bellman backups.
+ * A full sweep afterwards checks convergence exactly like FlatValueIteration; if the policy changed the
+ * components are computed again from the new policy and the pass is repeated.
+ *
+ * Passes stop paying off when utilities have to travel far along narrow corridors (large mazes): the
+ * policies near the front keep changing and each pass only shrinks the maximum change in utility slightly.
+ * After the first pass, which solves every component from the initial utilities, a pass that reduces the
+ * maximum change less than plain sweeps with the same number of backups are guaranteed to (discount per
+ * sweep) ends the passes, and the rest is solved with plain in-place sweeps.
+ */
+public class TopologicalValueIteration {
+	private final CompiledGrid grid;
+	// Provides the Bellman backup of a state (utility and policy)
+	private final FlatValueIteration solver;
+
+	// States of component c are componentStates[componentStart[c] .. componentStart[c + 1]), sinks first
+	private final int[] componentStates;
+	private final int[] componentStart;
+	private int numComponents;
+
+	// Tarjan's algorithm, kept between passes so a pass allocates nothing
+	private final int[] order;
+	private final int[] lowLink;
+	private final int[] stack;
+	private final boolean[] onStack;
+	private final int[] callStack;
+	private final int[] nextOutcome;
+
+	private long backups;
+	private int passes;
+	// Plain sweeps after the passes stopped reducing the change in utility
+	private int fallbackSweeps;
+	private int largestComponent;
+
+	/**
+	 * @param grid solved in place
+	 */
+	public TopologicalValueIteration(CompiledGrid grid) {
+		this.grid = grid;
+		this.solver = new FlatValueIteration(grid);
+		int numStates = grid.numStates;
+		this.componentStates = new int[numStates];
+		this.componentStart = new int[numStates + 1];
+		this.order = new int[numStates];
+		this.lowLink = new int[numStates];
+		this.stack = new int[numStates];
+		this.onStack = new boolean[numStates];
+		this.callStack = new int[numStates];
+		this.nextOutcome = new int[numStates];
+	}
+
+	/**
+	 * Solve components of the policy graph in reverse topological order until a full sweep
+	 * has a maximum change in utility within the threshold, or a pass stops reducing it.
+	 * @param threshold
+	 * @return Number of passes (component orderings)
+	 */
+	public int solve(double threshold) {
+		//1. Full sweep: greedy policies of the initial utilities
+		double maxChangeInUtility = sweep();
+		while (maxChangeInUtility > threshold) {
+			//2. Components of the current policy graph, sinks first
+			long backupsBeforePass = backups;
+			findComponents();
+
+			//3. Solve every component to convergence before the components upstream of it
+			for (int c = 0; c < numComponents; c++)
+				solveComponent(componentStart[c], componentStart[c + 1], threshold);
+			passes++;
+
+			//4. Same convergence check as value iteration, then compare with the contraction of plain sweeps
+			double previousChange = maxChangeInUtility;
+			maxChangeInUtility = sweep();
+			double sweepsOfPass = (double) (backups - backupsBeforePass) / grid.numStates;
+			if (passes > 1 && maxChangeInUtility > Math.pow(grid.discount, sweepsOfPass) * previousChange)
+				break;
+		}
+
+		//5. Passes stopped paying off: plain sweeps to the threshold
+		while (maxChangeInUtility > threshold) {
+			maxChangeInUtility = sweep();
+			fallbackSweeps++;
+		}
+		return passes;
+	}
+
+	/**
+	 * One in-place sweep over all states
+	 * @return Maximum change in utility
+	 */
+	private double sweep() {
+		double[] u = grid.utilities;
+		double maxChangeInUtility = 0;
+		for (int s = 0; s < grid.numStates; s++)
+			maxChangeInUtility = Math.max(maxChangeInUtility, solver.calculateUtilityChange(s, u, u));
+		backups += grid.numStates;
+		return maxChangeInUtility;
+	}
+
+	/**
+	 * Sweep the states componentStates[from, to) until the maximum change in utility is within the threshold.
+	 * A single state that is not its own successor only depends on solved states and needs one backup.
+	 */
+	private void solveComponent(int from, int to, double threshold) {
+		double[] u = grid.utilities;
+		if (to - from == 1 && !isOwnSuccessor(componentStates[from])) {
+			solver.calculateUtilityChange(componentStates[from], u, u);
+			backups++;
+			return;
+		}
+
+		double maxChangeInUtility;
+		do {
+			maxChangeInUtility = 0;
+			for (int i = from; i < to; i++)
+				maxChangeInUtility = Math.max(maxChangeInUtility, solver.calculateUtilityChange(componentStates[i], u, u));
+			backups += to - from;
+		} while (maxChangeInUtility > threshold);
+	}
+
+	private boolean isOwnSuccessor(int s) {
+		int next = (s * StateCoordinate.TOTAL_DIRECTIONS + grid.policies[s]) * StateIndex.TOTAL_OUTCOMES;
+		for (int o = 0; o < StateIndex.TOTAL_OUTCOMES; o++)
+			if (grid.successors[next + o] == s)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Tarjan's algorithm with an explicit call stack over the edges s -> outcomes of the policy of s.
+	 * Components are completed in reverse topological order: a component is only completed after every
+	 * component it can reach. States of a component are sorted, so it is swept in state index order.
+	 */
+	private void findComponents() {
+		int[] successors = grid.successors;
+		Arrays.fill(order, -1);
+		int counter = 0;
+		int stackSize = 0;
+		int filled = 0;
+		numComponents = 0;
+		largestComponent = 0;
+
+		for (int root = 0; root < grid.numStates; root++) {
+			if (order[root] >= 0)
+				continue;
+
+			int depth = 0;
+			callStack[depth++] = root;
+			order[root] = lowLink[root] = counter++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			nextOutcome[root] = 0;
+
+			while (depth > 0) {
+				int s = callStack[depth - 1];
+				if (nextOutcome[s] < StateIndex.TOTAL_OUTCOMES) {
+					//1. Visit the next outcome of the policy of s
+					int t = successors[(s * StateCoordinate.TOTAL_DIRECTIONS + grid.policies[s])
+							* StateIndex.TOTAL_OUTCOMES + nextOutcome[s]++];
+					if (order[t] < 0) {
+						callStack[depth++] = t;
+						order[t] = lowLink[t] = counter++;
+						stack[stackSize++] = t;
+						onStack[t] = true;
+						nextOutcome[t] = 0;
+					} else if (onStack[t]) {
+						lowLink[s] = Math.min(lowLink[s], order[t]);
+					}
+					continue;
+				}
+
+				//2. All outcomes visited: s is the root of a component, or passes its low link to its caller
+				depth--;
+				if (lowLink[s] == order[s]) {
+					componentStart[numComponents++] = filled;
+					int start = filled;
+					int t;
+					do {
+						t = stack[--stackSize];
+						onStack[t] = false;
+						componentStates[filled++] = t;
+					} while (t != s);
+					Arrays.sort(componentStates, start, filled);
+					largestComponent = Math.max(largestComponent, filled - start);
+				}
+				if (depth > 0) {
+					int caller = callStack[depth - 1];
+					lowLink[caller] = Math.min(lowLink[caller], lowLink[s]);
+				}
+			}
+		}
+		componentStart[numComponents] = filled;
+	}
+
+	/**
+	 * Number of components of the last pass
+	 */
+	public int getNumOfComponents() {
+		return numComponents;
+	}
+
+	/**
+	 * Number of states of the largest component of the last pass
+	 */
+	public int getLargestComponent() {
+		return largestComponent;
+	}
+
+	/**
+	 * Number of plain sweeps after the last pass
+	 */
+	public int getFallbackSweeps() {
+		return fallbackSweeps;
+	}
+
+	/**
+	 * Total number of Bellman backups, including the convergence check sweeps
+	 */
+	public long getBackups() {
+		return backups;
+	}
+}